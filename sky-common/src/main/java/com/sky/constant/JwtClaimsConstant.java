@@ -7,5 +7,11 @@ public class JwtClaimsConstant {
     public static final String PHONE = "phone";
     public static final String USERNAME = "username";
     public static final String NAME = "name";
+    //会话id，同一次登录签发的访问令牌和刷新令牌相同
+    public static final String SESSION_ID = "sid";
+    //令牌类型
+    public static final String TOKEN_TYPE = "typ";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
 
 }
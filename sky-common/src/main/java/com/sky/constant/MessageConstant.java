@@ -13,9 +13,16 @@ public class MessageConstant {
     public static final String USER_NOT_LOGIN = "用户未登录";
     public static final String CATEGORY_BE_RELATED_BY_SETMEAL = "当前分类关联了套餐,不能删除";
     public static final String CATEGORY_BE_RELATED_BY_DISH = "当前分类关联了菜品,不能删除";
+    public static final String CATEGORY_NOT_FOUND = "分类不存在";
     public static final String SHOPPING_CART_IS_NULL = "购物车数据为空，不能下单";
+    public static final String SHOPPING_CART_FULL = "购物车商品种类已达上限";
+    public static final String SHOPPING_CART_ITEM_LIMIT = "该商品数量已达上限";
+    public static final String SHOPPING_CART_ITEM_UNAVAILABLE = "商品不存在或已停售";
     public static final String ADDRESS_BOOK_IS_NULL = "用户地址为空，不能下单";
     public static final String LOGIN_FAILED = "登录失败";
+    public static final String LOGIN_TOO_FREQUENT = "登录尝试过于频繁，请稍后再试";
+    public static final String LOGIN_BUSY = "登录人数过多，请稍后再试";
+    public static final String SERVICE_BUSY = "系统繁忙，请稍后再试";
     public static final String UPLOAD_FAILED = "文件上传失败";
     public static final String SETMEAL_ENABLE_FAILED = "套餐内包含未启售菜品，无法启售";
     public static final String PASSWORD_EDIT_FAILED = "密码修改失败";
@@ -24,5 +31,8 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String ORDER_AMOUNT_MISMATCH = "商品价格已变化，请刷新购物车后重新下单";
+    public static final String ORDER_SUBMITTING = "订单正在提交，请勿重复操作";
+    public static final String PAGE_CURSOR_INVALID = "分页游标无效";
 
 }
@@ -1,5 +1,8 @@
 package com.sky.context;
 
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
 public class BaseContext {
 
     public static ThreadLocal<Long> threadLocal = new ThreadLocal<>();
@@ -16,4 +19,66 @@ public class BaseContext {
         threadLocal.remove();
     }
 
+    /**
+     * 包装任务，使其在其他线程执行时带上当前线程的上下文，执行完后恢复该线程原来的上下文
+     * 用于提交到线程池或CompletableFuture的任务
+     *
+     * @param task
+     * @return
+     */
+    public static Runnable wrap(Runnable task) {
+        Long capturedId = getCurrentId();
+        return () -> {
+            Long previousId = replace(capturedId);
+            try {
+                task.run();
+            } finally {
+                replace(previousId);
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Long capturedId = getCurrentId();
+        return () -> {
+            Long previousId = replace(capturedId);
+            try {
+                return task.call();
+            } finally {
+                replace(previousId);
+            }
+        };
+    }
+
+    /**
+     * 包装CompletableFuture.supplyAsync使用的任务
+     *
+     * @param task
+     * @return
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        Long capturedId = getCurrentId();
+        return () -> {
+            Long previousId = replace(capturedId);
+            try {
+                return task.get();
+            } finally {
+                replace(previousId);
+            }
+        };
+    }
+
+    /**
+     * 设置当前线程的上下文，返回原来的值；id为null时清除
+     */
+    private static Long replace(Long id) {
+        Long previousId = threadLocal.get();
+        if (id == null) {
+            threadLocal.remove();
+        } else {
+            threadLocal.set(id);
+        }
+        return previousId;
+    }
+
 }
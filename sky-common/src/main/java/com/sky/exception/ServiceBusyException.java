@@ -0,0 +1,15 @@
+package com.sky.exception;
+
+/**
+ * 服务繁忙异常，处理能力已满或等待超时
+ */
+public class ServiceBusyException extends BaseException {
+
+    public ServiceBusyException() {
+    }
+
+    public ServiceBusyException(String msg) {
+        super(msg);
+    }
+
+}
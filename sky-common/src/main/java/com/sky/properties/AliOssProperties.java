@@ -14,4 +14,13 @@ public class AliOssProperties {
     private String accessKeySecret;
     private String bucketName;
 
+    //客户端连接池最大连接数
+    private int maxConnections = 128;
+    //超过该大小（字节）的文件使用分片上传
+    private long multipartThreshold = 10 * 1024 * 1024;
+    //分片上传时每个分片的大小（字节），OSS要求不小于100KB
+    private long partSize = 5 * 1024 * 1024;
+    //并行上传分片的线程数
+    private int uploadThreads = 4;
+
 }
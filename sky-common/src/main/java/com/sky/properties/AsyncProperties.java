@@ -0,0 +1,18 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.async")
+@Data
+public class AsyncProperties {
+
+    //@Async任务线程池的核心线程数和最大线程数
+    private int corePoolSize = 4;
+    private int maxPoolSize = 16;
+    //排队上限，队列满后由提交任务的线程自己执行
+    private int queueCapacity = 1000;
+
+}
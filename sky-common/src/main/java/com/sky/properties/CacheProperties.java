@@ -0,0 +1,39 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.cache")
+@Data
+public class CacheProperties {
+
+    /**
+     * 分类缓存：本地一级缓存和Redis二级缓存的过期时间（秒）
+     */
+    private long categoryLocalTtlSeconds = 60;
+    private long categoryRedisTtlSeconds = 3600;
+
+    /**
+     * 游标分页时缓存的总记录数的过期时间（秒）
+     */
+    private long pageCountTtlSeconds = 60;
+
+    /**
+     * 员工缓存（按用户名和id）的过期时间（秒）和容量上限
+     */
+    private long employeeTtlSeconds = 300;
+    private long employeeMaxSize = 10000;
+
+    /**
+     * 菜单快照：是否同时保存到Redis（节点重启或新节点可直接加载），以及Redis中的过期时间（秒）
+     */
+    private boolean menuRedisEnabled = true;
+    private long menuRedisTtlSeconds = 86400;
+    /**
+     * 菜单快照在本地的过期时间（秒），漏收失效通知时的兜底
+     */
+    private long menuLocalTtlSeconds = 600;
+
+}
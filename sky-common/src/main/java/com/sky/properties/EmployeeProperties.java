@@ -0,0 +1,17 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.employee")
+@Data
+public class EmployeeProperties {
+
+    /**
+     * 批量新增员工时，每条insert语句包含的最大行数
+     */
+    private int batchSize = 500;
+
+}
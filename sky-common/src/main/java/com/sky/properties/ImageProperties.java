@@ -0,0 +1,29 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "sky.image")
+@Data
+public class ImageProperties {
+
+    //需要生成的缩略图宽度（像素），高度按原图比例缩放
+    private List<Integer> thumbnailWidths = new ArrayList<>(Arrays.asList(200, 400));
+    //缩略图的JPEG质量，取值0~1
+    private float thumbnailQuality = 0.85f;
+    //压缩图的JPEG质量，取值0~1
+    private float compressQuality = 0.75f;
+    //允许解码的最大像素数（宽×高），超过时不生成其他规格，避免小文件解码出巨大的图片占满内存
+    private long maxPixels = 25_000_000L;
+    //等待所有规格生成完成的最长时间（毫秒）
+    private long timeoutMillis = 10 * 1000;
+    //图片处理线程池的排队上限，线程数等于CPU核数
+    private int queueCapacity = 256;
+
+}
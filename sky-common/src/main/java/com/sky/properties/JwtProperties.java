@@ -15,6 +15,14 @@ public class JwtProperties {
     private String adminSecretKey;
     private long adminTtl;
     private String adminTokenName;
+    //刷新令牌的过期时间和前端传递的名称
+    private long adminRefreshTtl;
+    private String adminRefreshTokenName;
+    //本地缓存的已校验令牌数量上限
+    private long adminTokenCacheSize = 10000;
+    //吊销列表布隆过滤器的预计元素个数，以及从Redis同步的间隔（毫秒）
+    private int revocationExpectedInsertions = 100000;
+    private long revocationSyncMillis = 10000;
 
     /**
      * 用户端微信用户生成jwt令牌相关配置
@@ -0,0 +1,27 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.login-throttle")
+@Data
+public class LoginThrottleProperties {
+
+    //是否开启登录限流
+    private boolean enabled = true;
+    //计数器存储方式：local 单节点内存，redis 多节点共享
+    private String store = "local";
+    //滑动窗口长度（秒）
+    private int windowSeconds = 60;
+    //滑动窗口划分的子窗口个数，越多越精确
+    private int windowBuckets = 6;
+    //窗口内同一用户名允许的最大登录失败次数
+    private int maxAttemptsPerUsername = 10;
+    //窗口内同一IP允许的最大登录次数
+    private int maxAttemptsPerIp = 50;
+    //本地存储时最多跟踪的key数量，防止随机用户名撑爆内存
+    private long maxTrackedKeys = 100000;
+
+}
@@ -0,0 +1,21 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.order")
+@Data
+public class OrderProperties {
+
+    //客户端传递幂等键的请求头
+    private String idempotencyHeader = "Idempotency-Key";
+    //幂等键保留的时间（秒），期间使用同一幂等键重复提交返回第一次的下单结果
+    private long idempotencyTtlSeconds = 600;
+    //下单处理中的锁的过期时间（秒），防止进程异常退出后锁一直不释放
+    private long submitLockSeconds = 30;
+    //每份商品的打包费（元），订单打包费按购物车中的商品份数计算
+    private int packFeePerItem = 1;
+
+}
@@ -0,0 +1,25 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.password")
+@Data
+public class PasswordProperties {
+
+    //密码哈希算法：bcrypt 或 pbkdf2
+    private String algorithm = "bcrypt";
+    //哈希成本：bcrypt为log2轮数，pbkdf2为迭代次数；为0时启动时按目标耗时自动校准
+    private int cost = 0;
+    //自动校准时单次哈希的目标耗时（毫秒）
+    private long targetMillis = 100;
+    //密码校验线程池的线程数，为0时使用CPU核数
+    private int verifyThreads = 0;
+    //密码校验线程池的排队上限
+    private int verifyQueueCapacity = 100;
+    //等待密码校验完成的最长时间（毫秒）
+    private long verifyTimeoutMillis = 3000;
+
+}
@@ -0,0 +1,25 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.datasource.replica")
+@Data
+public class ReplicaProperties {
+
+    //是否开启读写分离，关闭时所有SQL都走主库
+    private boolean enabled = false;
+    //从库连接信息，连接池参数与主库相同
+    private String host;
+    private int port = 3306;
+    private String database;
+    private String username;
+    private String password;
+    //从库复制延迟超过该值（秒）时，只读查询退回主库
+    private long maxLagSeconds = 5;
+    //检查复制延迟的间隔（毫秒）
+    private long lagCheckMillis = 5000;
+
+}
@@ -0,0 +1,21 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.shopping-cart")
+@Data
+public class ShoppingCartProperties {
+
+    //购物车最后一次修改后保留的时间（秒）
+    private long ttlSeconds = 7 * 24 * 3600;
+    //购物车中商品种类的上限
+    private int maxItems = 50;
+    //单个商品的数量上限
+    private int maxQuantityPerItem = 99;
+    //菜品、套餐信息本地缓存的过期时间（秒），展示购物车时使用
+    private long lookupCacheTtlSeconds = 30;
+
+}
@@ -0,0 +1,23 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.slow-query")
+@Data
+public class SlowQueryProperties {
+
+    //是否记录慢查询
+    private boolean enabled = true;
+    //执行耗时达到该值（毫秒）的语句记为慢查询
+    private long thresholdMillis = 200;
+    //最近慢查询的保留条数（环形缓冲区大小）
+    private int bufferSize = 256;
+    //是否对慢查询采样执行计划
+    private boolean explainEnabled = true;
+    //同一条语句两次采样执行计划的最小间隔（秒）
+    private long explainIntervalSeconds = 300;
+
+}
@@ -15,8 +15,15 @@ import java.util.List;
 @NoArgsConstructor
 public class PageResult implements Serializable {
 
-    private long total; //总记录数
+    private long total; //总记录数，游标分页时为缓存的近似值
 
     private List records; //当前页数据集合
 
+    private String nextCursor; //游标分页时下一页的游标，没有下一页时为null
+
+    public PageResult(long total, List records) {
+        this.total = total;
+        this.records = records;
+    }
+
 }
@@ -1,26 +1,71 @@
 package com.sky.utils;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
 import com.sky.properties.AliOssProperties;
-import lombok.AllArgsConstructor;
-import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
-@Data
-@AllArgsConstructor
 @Slf4j
 @Component
 public class AliOssUtil {
     @Autowired
     private AliOssProperties aliOssProperties;
 
+    //整个应用共用的OSS客户端，内部维护连接池
+    private OSS ossClient;
+
+    //并行上传分片的线程池
+    private ExecutorService partUploadExecutor;
+
+    @PostConstruct
+    public void init() {
+        ClientBuilderConfiguration configuration = new ClientBuilderConfiguration();
+        configuration.setMaxConnections(aliOssProperties.getMaxConnections());
+
+        // 创建OSSClient实例。
+        ossClient = new OSSClientBuilder().build(aliOssProperties.getEndpoint(), aliOssProperties.getAccessKeyId(),
+                aliOssProperties.getAccessKeySecret(), configuration);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        partUploadExecutor = Executors.newFixedThreadPool(aliOssProperties.getUploadThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "oss-part-upload-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        partUploadExecutor.shutdown();
+        ossClient.shutdown();
+    }
+
     /**
      * 文件上传
      *
@@ -29,13 +74,34 @@ public class AliOssUtil {
      * @return
      */
     public String upload(byte[] bytes, String objectName) {
+        try {
+            return upload(new ByteArrayInputStream(bytes), bytes.length, objectName);
+        } catch (IOException e) {
+            //内存中的数据读取不会失败
+            throw new IllegalStateException(e);
+        }
+    }
 
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(aliOssProperties.getEndpoint(), aliOssProperties.getAccessKeyId(), aliOssProperties.getAccessKeySecret());
-
+    /**
+     * 文件上传，直接读取输入流，不把整个文件读入内存
+     * 文件超过分片阈值时使用分片上传，多个分片并行上传
+     *
+     * @param inputStream
+     * @param size        文件大小（字节）
+     * @param objectName
+     * @return
+     * @throws IOException 读取输入流失败时抛出
+     */
+    public String upload(InputStream inputStream, long size, String objectName) throws IOException {
         try {
-            // 创建PutObject请求。
-            ossClient.putObject(aliOssProperties.getBucketName(), objectName, new ByteArrayInputStream(bytes));
+            if (size >= aliOssProperties.getMultipartThreshold()) {
+                multipartUpload(inputStream, objectName);
+            } else {
+                // 创建PutObject请求，指定长度后SDK不再缓冲整个输入流
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(size);
+                ossClient.putObject(aliOssProperties.getBucketName(), objectName, inputStream, metadata);
+            }
         } catch (OSSException oe) {
             System.out.println("Caught an OSSException, which means your request made it to OSS, "
                     + "but was rejected with an error response for some reason.");
@@ -48,10 +114,6 @@ public class AliOssUtil {
                     + "a serious internal problem while trying to communicate with OSS, "
                     + "such as not being able to access the network.");
             System.out.println("Error Message:" + ce.getMessage());
-        } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
         }
 
         //文件访问路径规则 https://BucketName.Endpoint/ObjectName
@@ -67,4 +129,95 @@ public class AliOssUtil {
 
         return stringBuilder.toString();
     }
+
+    /**
+     * 分片上传
+     * 按顺序从输入流读取分片，交给线程池并行上传；同时在途的分片数不超过上传线程数，内存占用有上限
+     *
+     * @param inputStream
+     * @param objectName
+     * @throws IOException 读取输入流失败时抛出
+     */
+    private void multipartUpload(InputStream inputStream, String objectName) throws IOException {
+        String bucketName = aliOssProperties.getBucketName();
+        String uploadId = ossClient.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucketName, objectName)).getUploadId();
+
+        int partSize = (int) aliOssProperties.getPartSize();
+        Semaphore inFlightParts = new Semaphore(aliOssProperties.getUploadThreads());
+        List<Future<PartETag>> futures = new ArrayList<>();
+        try {
+            int partNumber = 1;
+            while (true) {
+                byte[] buffer = readPart(inputStream, partSize);
+                if (buffer.length == 0) {
+                    break;
+                }
+
+                inFlightParts.acquire();
+                UploadPartRequest request = new UploadPartRequest(bucketName, objectName, uploadId,
+                        partNumber++, new ByteArrayInputStream(buffer), buffer.length);
+                futures.add(partUploadExecutor.submit(() -> {
+                    try {
+                        return ossClient.uploadPart(request).getPartETag();
+                    } finally {
+                        inFlightParts.release();
+                    }
+                }));
+
+                if (buffer.length < partSize) {
+                    break;
+                }
+            }
+
+            List<PartETag> partETags = new ArrayList<>(futures.size());
+            for (Future<PartETag> future : futures) {
+                partETags.add(future.get());
+            }
+            partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(bucketName, objectName, uploadId, futures);
+            throw new IOException("分片上传被中断", e);
+        } catch (ExecutionException e) {
+            abort(bucketName, objectName, uploadId, futures);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            abort(bucketName, objectName, uploadId, futures);
+            throw e;
+        }
+    }
+
+    /**
+     * 从输入流读取一个分片，流结束时返回的数组可能短于分片大小
+     */
+    private static byte[] readPart(InputStream inputStream, int partSize) throws IOException {
+        byte[] buffer = new byte[partSize];
+        int offset = 0;
+        int read;
+        while (offset < partSize && (read = inputStream.read(buffer, offset, partSize - offset)) != -1) {
+            offset += read;
+        }
+        if (offset == partSize) {
+            return buffer;
+        }
+        byte[] last = new byte[offset];
+        System.arraycopy(buffer, 0, last, 0, offset);
+        return last;
+    }
+
+    /**
+     * 取消分片上传，释放OSS上已上传的分片
+     */
+    private void abort(String bucketName, String objectName, String uploadId, List<Future<PartETag>> futures) {
+        futures.forEach(future -> future.cancel(true));
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+        } catch (OSSException | ClientException e) {
+            log.error("取消分片上传失败：{}", e.getMessage());
+        }
+    }
 }
@@ -11,6 +11,7 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 
@@ -19,14 +20,72 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的HttpClient，连接可以复用（keep-alive）
  */
 public class HttpClientUtil {
 
     static final  int TIMEOUT_MSEC = 5 * 1000;
 
+    //连接池最大连接数
+    static final int MAX_TOTAL_CONNECTIONS = 200;
+    //每个路由（目标主机）的最大连接数
+    static final int MAX_CONNECTIONS_PER_ROUTE = 50;
+    //空闲连接超过该时间后被回收
+    static final int IDLE_CONNECTION_EVICT_SEC = 30;
+    //连接池中的连接空闲超过该时间后，复用前先校验是否可用
+    static final int VALIDATE_AFTER_INACTIVITY_MSEC = 2 * 1000;
+
+    //异步请求线程池大小及排队上限
+    static final int ASYNC_THREADS = 16;
+    static final int ASYNC_QUEUE_CAPACITY = 1000;
+
+    private static final CloseableHttpClient HTTP_CLIENT;
+
+    private static final ExecutorService ASYNC_EXECUTOR;
+
+    static {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MSEC);
+
+        HTTP_CLIENT = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(builderRequestConfig())
+                //后台线程定期清理过期和空闲的连接
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_CONNECTION_EVICT_SEC, TimeUnit.SECONDS)
+                .build();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ASYNC_EXECUTOR = new ThreadPoolExecutor(ASYNC_THREADS, ASYNC_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ASYNC_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-client-async-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            ASYNC_EXECUTOR.shutdown();
+            try {
+                HTTP_CLIENT.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "http-client-shutdown"));
+    }
+
     /**
      * 发送GET方式请求
      * @param url
@@ -34,11 +93,7 @@ public class HttpClientUtil {
      * @return
      */
     public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-
         String result = "";
-        CloseableHttpResponse response = null;
 
         try{
             URIBuilder builder = new URIBuilder(url);
@@ -53,21 +108,17 @@ public class HttpClientUtil {
             HttpGet httpGet = new HttpGet(uri);
 
             //发送请求
-            response = httpClient.execute(httpGet);
-
-            //判断响应状态
-            if(response.getStatusLine().getStatusCode() == 200){
-                result = EntityUtils.toString(response.getEntity(),"UTF-8");
+            try (CloseableHttpResponse response = HTTP_CLIENT.execute(httpGet)) {
+                //判断响应状态
+                if(response.getStatusLine().getStatusCode() == 200){
+                    result = EntityUtils.toString(response.getEntity(),"UTF-8");
+                } else {
+                    //读完响应体，连接才能归还连接池复用
+                    EntityUtils.consume(response.getEntity());
+                }
             }
         }catch (Exception e){
             e.printStackTrace();
-        }finally {
-            try {
-                response.close();
-                httpClient.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
         }
 
         return result;
@@ -81,43 +132,24 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
-
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            // 创建参数列表
-            if (paramMap != null) {
-                List<NameValuePair> paramList = new ArrayList();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
-                }
-                // 模拟表单
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
-                httpPost.setEntity(entity);
-            }
-
-            httpPost.setConfig(builderRequestConfig());
-
-            // 执行http请求
-            response = httpClient.execute(httpPost);
-
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
+
+        // 创建参数列表
+        if (paramMap != null) {
+            List<NameValuePair> paramList = new ArrayList();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
             }
+            // 模拟表单
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
+            httpPost.setEntity(entity);
         }
 
-        return resultString;
+        // 执行http请求
+        try (CloseableHttpResponse response = HTTP_CLIENT.execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
+        }
     }
 
     /**
@@ -128,47 +160,71 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
-
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            if (paramMap != null) {
-                //构造json格式数据
-                JSONObject jsonObject = new JSONObject();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    jsonObject.put(param.getKey(),param.getValue());
-                }
-                StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
-                //设置请求编码
-                entity.setContentEncoding("utf-8");
-                //设置数据类型
-                entity.setContentType("application/json");
-                httpPost.setEntity(entity);
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
+
+        if (paramMap != null) {
+            //构造json格式数据
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                jsonObject.put(param.getKey(),param.getValue());
             }
+            StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
+            //设置请求编码
+            entity.setContentEncoding("utf-8");
+            //设置数据类型
+            entity.setContentType("application/json");
+            httpPost.setEntity(entity);
+        }
 
-            httpPost.setConfig(builderRequestConfig());
+        // 执行http请求
+        try (CloseableHttpResponse response = HTTP_CLIENT.execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
+        }
+    }
 
-            // 执行http请求
-            response = httpClient.execute(httpPost);
+    /**
+     * 异步发送GET方式请求，不占用调用方线程
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doGetAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> doGet(url, paramMap), ASYNC_EXECUTOR);
+    }
 
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
+    /**
+     * 异步发送POST方式请求，不占用调用方线程
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doPostAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                response.close();
+                return doPost(url, paramMap);
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new CompletionException(e);
             }
-        }
+        }, ASYNC_EXECUTOR);
+    }
 
-        return resultString;
+    /**
+     * 异步发送json格式的POST请求，不占用调用方线程
+     * @param url
+     * @param paramMap
+     * @return
+     */
+    public static CompletableFuture<String> doPost4JsonAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return doPost4Json(url, paramMap);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, ASYNC_EXECUTOR);
     }
+
     private static RequestConfig builderRequestConfig() {
         return RequestConfig.custom()
                 .setConnectTimeout(TIMEOUT_MSEC)
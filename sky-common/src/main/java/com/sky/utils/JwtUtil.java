@@ -4,11 +4,25 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JwtUtil {
+
+    /**
+     * 指定签名的时候使用的签名算法，也就是header那部分
+     */
+    private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS256;
+
+    /**
+     * 按秘钥字符串缓存的签名秘钥，避免每次签名/验签都重新构造
+     */
+    private static final Map<String, SecretKeySpec> SIGNING_KEYS = new ConcurrentHashMap<>();
+
     /**
      * 生成jwt
      * 使用Hs256算法, 私匙使用固定秘钥
@@ -19,9 +33,6 @@ public class JwtUtil {
      * @return
      */
     public static String createJWT(String secretKey, long ttlMillis, Map<String, Object> claims) {
-        // 指定签名的时候使用的签名算法，也就是header那部分
-        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.HS256;
-
         // 生成JWT的时间
         long expMillis = System.currentTimeMillis() + ttlMillis;
         Date exp = new Date(expMillis);
@@ -31,7 +42,9 @@ public class JwtUtil {
                 // 如果有私有声明，一定要先设置这个自己创建的私有的声明，这个是给builder的claim赋值，一旦写在标准的声明赋值之后，就是覆盖了那些标准的声明的
                 .setClaims(claims)
                 // 设置签名使用的签名算法和签名使用的秘钥
-                .signWith(signatureAlgorithm, secretKey.getBytes(StandardCharsets.UTF_8))
+                .signWith(SIGNATURE_ALGORITHM, getSigningKey(secretKey))
+                // 设置签发时间，用于判断令牌是否签发于账号被禁用之前
+                .setIssuedAt(new Date())
                 // 设置过期时间
                 .setExpiration(exp);
 
@@ -49,10 +62,21 @@ public class JwtUtil {
         // 得到DefaultJwtParser
         Claims claims = Jwts.parser()
                 // 设置签名的秘钥
-                .setSigningKey(secretKey.getBytes(StandardCharsets.UTF_8))
+                .setSigningKey(getSigningKey(secretKey))
                 // 设置需要解析的jwt
                 .parseClaimsJws(token).getBody();
         return claims;
     }
 
+    /**
+     * 获取秘钥字符串对应的签名秘钥，同一个秘钥只构造一次
+     *
+     * @param secretKey jwt秘钥
+     * @return
+     */
+    private static SecretKeySpec getSigningKey(String secretKey) {
+        return SIGNING_KEYS.computeIfAbsent(secretKey,
+                key -> new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM.getJcaName()));
+    }
+
 }
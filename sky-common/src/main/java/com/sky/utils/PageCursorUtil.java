@@ -0,0 +1,51 @@
+package com.sky.utils;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.BaseException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * 游标分页工具类
+ * 游标由上一页最后一条记录的排序字段和id拼接后做Base64编码，对前端是不透明的字符串
+ */
+public class PageCursorUtil {
+
+    private static final String SEPARATOR = ",";
+
+    /**
+     * 生成游标
+     *
+     * @param keys 排序字段的值，最后一个一般为id
+     * @return
+     */
+    public static String encode(Object... keys) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        for (Object key : keys) {
+            joiner.add(String.valueOf(key));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     *
+     * @param cursor    游标
+     * @param keyCount  游标中应包含的字段个数
+     * @return 各排序字段的字符串值
+     */
+    public static String[] decode(String cursor, int keyCount) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = decoded.split(SEPARATOR, -1);
+            if (keys.length == keyCount) {
+                return keys;
+            }
+        } catch (IllegalArgumentException ignored) {
+            //游标不是合法的Base64，按无效游标处理
+        }
+        throw new BaseException(MessageConstant.PAGE_CURSOR_INVALID);
+    }
+}
@@ -17,10 +17,13 @@ import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Signature;
 import java.security.cert.X509Certificate;
@@ -44,31 +47,147 @@ public class WeChatPayUtil {
     @Autowired
     private WeChatProperties weChatProperties;
 
+    //商户证书和平台证书文件变更的检查间隔
+    private static final long FILE_CHECK_INTERVAL_MILLIS = 10 * 1000;
+
+    //二次签名使用的Signature对象，每个线程复用一个
+    private static final ThreadLocal<Signature> SHA256_WITH_RSA = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance("SHA256withRSA");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    //当前使用的商户私钥和客户端，文件变更后整体替换
+    private volatile PayClientHolder holder;
+
+    //上一次被替换下来的客户端，等到下一次替换或应用关闭时再关闭，避免中断正在进行的请求
+    private CloseableHttpClient retiredClient;
+
+    //上一次检查证书文件的时间
+    private volatile long lastFileCheckMillis;
+
     /**
      * 获取调用微信接口的客户端工具对象
+     * 私钥、平台证书和客户端只加载一次，证书文件发生变化时重新加载
+     *
+     * @return
+     */
+    private CloseableHttpClient getClient() throws IOException {
+        return getHolder().httpClient;
+    }
+
+    /**
+     * 获取商户私钥
+     *
+     * @return
+     */
+    private PrivateKey getPrivateKey() throws IOException {
+        return getHolder().merchantPrivateKey;
+    }
+
+    /**
+     * 获取当前的私钥和客户端，必要时重新加载
+     *
+     * @return
+     */
+    private PayClientHolder getHolder() throws IOException {
+        PayClientHolder current = holder;
+        long now = System.currentTimeMillis();
+        if (current != null && now - lastFileCheckMillis < FILE_CHECK_INTERVAL_MILLIS) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = holder;
+            if (current != null && now - lastFileCheckMillis < FILE_CHECK_INTERVAL_MILLIS) {
+                return current;
+            }
+            File privateKeyFile = new File(weChatProperties.getPrivateKeyFilePath());
+            File certFile = new File(weChatProperties.getWeChatPayCertFilePath());
+            if (current == null
+                    || current.privateKeyLastModified != privateKeyFile.lastModified()
+                    || current.certLastModified != certFile.lastModified()) {
+                PayClientHolder loaded = load(privateKeyFile, certFile);
+                closeQuietly(retiredClient);
+                retiredClient = current == null ? null : current.httpClient;
+                holder = loaded;
+                current = loaded;
+            }
+            lastFileCheckMillis = now;
+            return current;
+        }
+    }
+
+    /**
+     * 从文件加载商户私钥和平台证书，并构造客户端
      *
+     * @param privateKeyFile 商户私钥文件
+     * @param certFile       平台证书文件
      * @return
      */
-    private CloseableHttpClient getClient() {
-        PrivateKey merchantPrivateKey = null;
+    private PayClientHolder load(File privateKeyFile, File certFile) throws IOException {
+        long privateKeyLastModified = privateKeyFile.lastModified();
+        long certLastModified = certFile.lastModified();
+
+        PrivateKey merchantPrivateKey;
+        X509Certificate x509Certificate;
+        //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
+        try (FileInputStream privateKeyInput = new FileInputStream(privateKeyFile)) {
+            merchantPrivateKey = PemUtil.loadPrivateKey(privateKeyInput);
+        }
+        //加载平台证书文件
+        try (FileInputStream certInput = new FileInputStream(certFile)) {
+            x509Certificate = PemUtil.loadCertificate(certInput);
+        }
+        //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
+        List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
+
+        WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
+                .withWechatPay(wechatPayCertificates);
+
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
+        CloseableHttpClient httpClient = builder.build();
+        return new PayClientHolder(merchantPrivateKey, httpClient, privateKeyLastModified, certLastModified);
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        closeQuietly(retiredClient);
+        if (holder != null) {
+            closeQuietly(holder.httpClient);
+        }
+    }
+
+    private static void closeQuietly(CloseableHttpClient httpClient) {
+        if (httpClient == null) {
+            return;
+        }
         try {
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
-            //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
-
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
-
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-        } catch (FileNotFoundException e) {
+            httpClient.close();
+        } catch (IOException e) {
             e.printStackTrace();
-            return null;
+        }
+    }
+
+    /**
+     * 已加载的商户私钥与客户端
+     */
+    private static final class PayClientHolder {
+
+        private final PrivateKey merchantPrivateKey;
+        private final CloseableHttpClient httpClient;
+        private final long privateKeyLastModified;
+        private final long certLastModified;
+
+        private PayClientHolder(PrivateKey merchantPrivateKey, CloseableHttpClient httpClient,
+                                long privateKeyLastModified, long certLastModified) {
+            this.merchantPrivateKey = merchantPrivateKey;
+            this.httpClient = httpClient;
+            this.privateKeyLastModified = privateKeyLastModified;
+            this.certLastModified = certLastModified;
         }
     }
 
@@ -93,7 +212,6 @@ public class WeChatPayUtil {
             String bodyAsString = EntityUtils.toString(response.getEntity());
             return bodyAsString;
         } finally {
-            httpClient.close();
             response.close();
         }
     }
@@ -117,7 +235,6 @@ public class WeChatPayUtil {
             String bodyAsString = EntityUtils.toString(response.getEntity());
             return bodyAsString;
         } finally {
-            httpClient.close();
             response.close();
         }
     }
@@ -187,8 +304,8 @@ public class WeChatPayUtil {
             String signMessage = stringBuilder.toString();
             byte[] message = signMessage.getBytes();
 
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            Signature signature = SHA256_WITH_RSA.get();
+            signature.initSign(getPrivateKey());
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
@@ -19,4 +19,7 @@ public class CategoryPageQueryDTO implements Serializable {
     //分类类型 1菜品分类  2套餐分类
     private Integer type;
 
+    //游标分页：上一页返回的nextCursor，第一页传空字符串；为null时使用页码分页
+    private String cursor;
+
 }
@@ -0,0 +1,20 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategoryRelationDTO implements Serializable {
+    //是否关联了菜品
+    private Boolean dishRelated;
+
+    //是否关联了套餐
+    private Boolean setmealRelated;
+}
@@ -16,4 +16,7 @@ public class EmployeePageQueryDTO implements Serializable {
     //每页显示记录数
     private int pageSize;
 
+    //游标分页：上一页返回的nextCursor，第一页传空字符串；为null时使用页码分页
+    private String cursor;
+
 }
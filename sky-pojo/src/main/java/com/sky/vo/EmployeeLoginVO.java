@@ -28,4 +28,7 @@ public class EmployeeLoginVO implements Serializable {
     @ApiModelProperty("jwt令牌")
     private String token;
 
+    @ApiModelProperty("刷新令牌，用于访问令牌过期后换取新令牌")
+    private String refreshToken;
+
 }
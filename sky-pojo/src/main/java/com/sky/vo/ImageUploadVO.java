@@ -0,0 +1,26 @@
+package com.sky.vo;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "图片上传返回的数据格式")
+public class ImageUploadVO implements Serializable {
+
+    @ApiModelProperty("原图访问路径")
+    private String url;
+
+    @ApiModelProperty("缩略图及压缩图访问路径，key为规格名称，例如w200、compressed")
+    private Map<String, String> variants;
+
+}
@@ -0,0 +1,37 @@
+package com.sky.vo;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ApiModel(description = "慢查询记录")
+public class SlowQueryVO implements Serializable {
+
+    @ApiModelProperty("映射语句，例如EmployeeMapper.pageQuery")
+    private String statement;
+
+    @ApiModelProperty("执行的SQL，不含参数值")
+    private String sql;
+
+    @ApiModelProperty("执行耗时（毫秒）")
+    private long elapsedMillis;
+
+    @ApiModelProperty("执行时间")
+    private LocalDateTime executeTime;
+
+    @ApiModelProperty("采样的执行计划，未采样时为空")
+    private volatile List<Map<String, Object>> explain;
+
+}
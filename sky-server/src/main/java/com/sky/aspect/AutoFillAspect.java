@@ -6,17 +6,19 @@ import com.sky.context.BaseContext;
 import com.sky.enumeration.OperationType;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 自定义切面，实现公共字段自动填充处理逻辑
@@ -28,6 +30,11 @@ import java.time.LocalDateTime;
 @Slf4j
 public class AutoFillAspect {
 
+    /**
+     * 按实体类缓存的setter句柄，每个类只在第一次填充时解析一次
+     */
+    private static final Map<Class<?>, AutoFillSetters> SETTERS_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 定义切入点表达式，匹配 mapper 包下所有带有 @AutoFill 注解的方法
      */
@@ -39,13 +46,11 @@ public class AutoFillAspect {
      * 前置通知，在目标方法执行前进行公共字段的自动填充
      *
      * @param joinPoint 连接点对象，用于获取方法签名和参数信息
-     * @throws NoSuchMethodException     当反射获取方法失败时抛出
-     * @throws InvocationTargetException 当反射调用方法过程中发生异常时抛出
-     * @throws IllegalAccessException    当没有权限访问方法时抛出
+     * @throws Throwable 当调用实体setter过程中发生异常时抛出
      */
     @Before("autoFillPointCut()")
-    public void autoFill(JoinPoint joinPoint) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        log.info("开始公共字段自动填充...");
+    public void autoFill(JoinPoint joinPoint) throws Throwable {
+        log.debug("开始公共字段自动填充...");
 
         // 获取当前拦截方法上的数据库操作类型
         MethodSignature signature = (MethodSignature) joinPoint.getSignature(); // 获取方法签名
@@ -58,33 +63,99 @@ public class AutoFillAspect {
             return;
         }
 
-        Object entity = args[0];
+        Object arg = args[0];
+        if (arg == null) {
+            return;
+        }
 
         // 准备赋值的数据
         LocalDateTime now = LocalDateTime.now();
         Long currentId = BaseContext.getCurrentId();
 
-        // 根据当前不同的操作类型，为对应属性赋值（使用反射）
+        // 批量操作时参数为集合或数组，需要为其中的每个实体赋值
+        if (arg instanceof Collection) {
+            for (Object entity : (Collection<?>) arg) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else if (arg instanceof Object[]) {
+            for (Object entity : (Object[]) arg) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else {
+            fill(arg, operationType, now, currentId);
+        }
+    }
+
+    /**
+     * 为单个实体对象的公共字段赋值
+     *
+     * @param entity        实体对象
+     * @param operationType 数据库操作类型
+     * @param now           当前时间
+     * @param currentId     当前登录用户id
+     * @throws Throwable 当调用实体setter过程中发生异常时抛出
+     */
+    private void fill(Object entity, OperationType operationType, LocalDateTime now, Long currentId) throws Throwable {
+        if (entity == null) {
+            return;
+        }
+
+        // 从缓存中取出实体类对应的setter句柄，避免每次都通过反射查找方法
+        AutoFillSetters setters = SETTERS_CACHE.computeIfAbsent(entity.getClass(), AutoFillSetters::resolve);
+
+        // 根据当前不同的操作类型，为对应属性赋值
         if (operationType == OperationType.INSERT) {
             // 插入操作：为创建时间和更新时间、创建人和更新人字段赋值
-            Method setCreateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
-            Method setCreateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
-            Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-            Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
-
-            // 通过反射为对象属性赋值
-            setCreateTime.invoke(entity, now);
-            setCreateUser.invoke(entity, currentId);
-            setUpdateTime.invoke(entity, now);
-            setUpdateUser.invoke(entity, currentId);
+            setters.setCreateTime.invokeExact(entity, now);
+            setters.setCreateUser.invokeExact(entity, currentId);
+            setters.setUpdateTime.invokeExact(entity, now);
+            setters.setUpdateUser.invokeExact(entity, currentId);
         } else if (operationType == OperationType.UPDATE) {
             // 更新操作：只为更新时间和更新人字段赋值
-            Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-            Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+            setters.setUpdateTime.invokeExact(entity, now);
+            setters.setUpdateUser.invokeExact(entity, currentId);
+        }
+    }
+
+    /**
+     * 实体类公共字段的setter句柄
+     * 句柄类型统一适配为 (Object, LocalDateTime)void / (Object, Long)void，以便使用invokeExact调用
+     */
+    private static final class AutoFillSetters {
+
+        private static final MethodType TIME_SETTER_TYPE = MethodType.methodType(void.class, Object.class, LocalDateTime.class);
+        private static final MethodType USER_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Long.class);
+
+        private final MethodHandle setCreateTime;
+        private final MethodHandle setCreateUser;
+        private final MethodHandle setUpdateTime;
+        private final MethodHandle setUpdateUser;
+
+        private AutoFillSetters(MethodHandle setCreateTime, MethodHandle setCreateUser,
+                                MethodHandle setUpdateTime, MethodHandle setUpdateUser) {
+            this.setCreateTime = setCreateTime;
+            this.setCreateUser = setCreateUser;
+            this.setUpdateTime = setUpdateTime;
+            this.setUpdateUser = setUpdateUser;
+        }
 
-            // 通过反射为对象属性赋值
-            setUpdateTime.invoke(entity, now);
-            setUpdateUser.invoke(entity, currentId);
+        /**
+         * 解析实体类上的四个公共字段setter
+         *
+         * @param entityClass 实体类
+         * @return setter句柄
+         */
+        private static AutoFillSetters resolve(Class<?> entityClass) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                return new AutoFillSetters(
+                        lookup.unreflect(entityClass.getDeclaredMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class)).asType(TIME_SETTER_TYPE),
+                        lookup.unreflect(entityClass.getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class)).asType(USER_SETTER_TYPE),
+                        lookup.unreflect(entityClass.getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class)).asType(TIME_SETTER_TYPE),
+                        lookup.unreflect(entityClass.getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class)).asType(USER_SETTER_TYPE));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalStateException("实体类缺少公共字段setter：" + entityClass.getName(), e);
+            }
         }
     }
 }
@@ -0,0 +1,77 @@
+package com.sky.aspect;
+
+import com.sky.cache.EmployeeCache;
+import com.sky.entity.Employee;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * 自定义切面，员工数据写入成功后使员工缓存失效
+ */
+@Aspect
+@Component
+@Slf4j
+public class EmployeeCacheAspect {
+
+    @Autowired
+    private EmployeeCache employeeCache;
+
+    /**
+     * 匹配EmployeeMapper中的新增和修改方法
+     */
+    @Pointcut("execution(* com.sky.mapper.EmployeeMapper.insert*(..)) || execution(* com.sky.mapper.EmployeeMapper.update*(..))")
+    public void employeeWritePointCut() {
+    }
+
+    /**
+     * 返回通知，在写入成功后失效缓存；处于事务中时等事务提交后再失效
+     *
+     * @param joinPoint
+     */
+    @AfterReturning("employeeWritePointCut()")
+    public void evict(JoinPoint joinPoint) {
+        Object[] args = joinPoint.getArgs();
+        if (args == null || args.length == 0 || args[0] == null) {
+            return;
+        }
+
+        Object arg = args[0];
+        Runnable eviction = () -> {
+            if (arg instanceof Collection) {
+                for (Object employee : (Collection<?>) arg) {
+                    evict((Employee) employee);
+                }
+            } else if (arg instanceof Employee) {
+                evict((Employee) arg);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private void evict(Employee employee) {
+        log.debug("员工缓存失效：{}", employee.getId());
+        if (employee.getId() != null) {
+            employeeCache.evict(employee.getId());
+        }
+        employeeCache.evictUsername(employee.getUsername());
+    }
+}
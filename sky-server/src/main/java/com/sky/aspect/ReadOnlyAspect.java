@@ -0,0 +1,33 @@
+package com.sky.aspect;
+
+import com.sky.datasource.DataSourceContext;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.stereotype.Component;
+
+/**
+ * 自定义切面，标记@ReadOnly方法执行期间的查询可以走从库
+ */
+@Aspect
+@Component
+public class ReadOnlyAspect {
+
+    /**
+     * 匹配标注了@ReadOnly的方法，以及标注了@ReadOnly的类中的方法
+     */
+    @Pointcut("@annotation(com.sky.annotation.ReadOnly) || @within(com.sky.annotation.ReadOnly)")
+    public void readOnlyPointCut() {
+    }
+
+    @Around("readOnlyPointCut()")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = DataSourceContext.enterReadOnly();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceContext.restore(previous);
+        }
+    }
+}
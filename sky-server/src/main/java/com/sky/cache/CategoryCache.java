@@ -0,0 +1,182 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.entity.Category;
+import com.sky.properties.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按类型查询分类的两级缓存
+ * 一级为本地Caffeine缓存，二级为Redis；分类变更时删除Redis数据，并通过发布订阅通知所有节点清空本地缓存。
+ * 失效时递增版本号，查询数据库前记下版本号，写回缓存时版本号已变化则放弃写入，
+ * 避免在提交前读到旧数据的请求在失效之后把旧数据写回缓存
+ */
+@Component
+@Slf4j
+public class CategoryCache {
+
+    //Redis中保存分类列表的hash，field为分类类型
+    private static final String REDIS_KEY = "sky:cache:category:type";
+    //分类缓存失效通知的频道
+    private static final String EVICT_CHANNEL = "sky:cache:category:evict";
+    //查询全部类型时使用的缓存key
+    private static final String ALL_TYPES = "all";
+    //分类缓存的版本号，每次失效时递增
+    private static final String VERSION_KEY = "sky:cache:category:version";
+
+    //KEYS: 分类hash、版本号；ARGV: field、分类列表、过期时间（秒）、查询数据库前的版本号；版本号未变化时写入并返回1
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[4] then return 0 end " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    private Cache<String, List<Category>> localCache;
+    //本地缓存的代数，本节点或其他节点失效时递增
+    private final AtomicLong generation = new AtomicLong();
+
+    //命中统计，用于观察数据库的分流效果
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(16)
+                .expireAfterWrite(cacheProperties.getCategoryLocalTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            generation.incrementAndGet();
+            localCache.invalidateAll();
+        }, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 按类型获取分类列表，依次查询本地缓存、Redis，都未命中时调用loader查询数据库
+     *
+     * @param type   分类类型，为null表示全部类型
+     * @param loader 查询数据库的方法
+     * @return
+     */
+    public List<Category> get(String type, Supplier<List<Category>> loader) {
+        String key = type == null ? ALL_TYPES : type;
+
+        List<Category> categories = localCache.getIfPresent(key);
+        if (categories != null) {
+            localHits.increment();
+            return categories;
+        }
+
+        long localGeneration = generation.get();
+        String version = null;
+        try {
+            Object json = stringRedisTemplate.opsForHash().get(REDIS_KEY, key);
+            if (json != null) {
+                redisHits.increment();
+                categories = JSON.parseArray(json.toString(), Category.class);
+                putLocal(key, categories, localGeneration);
+                return categories;
+            }
+            version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+            if (version == null) {
+                version = "0";
+            }
+        } catch (Exception e) {
+            //Redis不可用时直接查询数据库，也不写回Redis
+            log.warn("读取分类缓存失败：{}", e.getMessage());
+        }
+
+        misses.increment();
+        categories = loader.get();
+        putLocal(key, categories, localGeneration);
+        if (version != null) {
+            try {
+                stringRedisTemplate.execute(FILL_SCRIPT, Arrays.asList(REDIS_KEY, VERSION_KEY),
+                        key, JSON.toJSONString(categories),
+                        String.valueOf(cacheProperties.getCategoryRedisTtlSeconds()), version);
+            } catch (Exception e) {
+                log.warn("写入分类缓存失败：{}", e.getMessage());
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * 写入本地缓存，读取期间发生过失效时撤回本次写入
+     */
+    private void putLocal(String key, List<Category> categories, long localGeneration) {
+        localCache.put(key, categories);
+        if (generation.get() != localGeneration) {
+            localCache.asMap().remove(key, categories);
+        }
+    }
+
+    /**
+     * 分类数据变更后使缓存失效
+     * 在事务中调用时，等事务提交后再失效，避免其他请求在提交前把旧数据重新写回缓存
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate();
+                }
+            });
+        } else {
+            doInvalidate();
+        }
+    }
+
+    private void doInvalidate() {
+        generation.incrementAndGet();
+        localCache.invalidateAll();
+        try {
+            //先递增版本号再删除，版本号变化前写入的数据会被删除，变化后的写入会被脚本拒绝
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+            stringRedisTemplate.delete(REDIS_KEY);
+            stringRedisTemplate.convertAndSend(EVICT_CHANNEL, ALL_TYPES);
+        } catch (Exception e) {
+            log.warn("清除分类缓存失败：{}", e.getMessage());
+        }
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
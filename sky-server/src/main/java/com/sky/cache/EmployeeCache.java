@@ -0,0 +1,155 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.entity.Employee;
+import com.sky.properties.CacheProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 员工本地缓存
+ * 按用户名缓存登录所需的字段，按id缓存员工信息；员工数据写入后由EmployeeCacheAspect失效，并通过发布订阅通知其他节点。
+ * 每次失效都会递增代数，查询数据库期间发生过失效时丢弃查询结果，避免事务提交前读到的旧数据在失效之后写回缓存
+ */
+@Component
+@Slf4j
+public class EmployeeCache {
+
+    //员工缓存失效通知的频道，消息内容为员工id，为空表示清空全部
+    private static final String EVICT_CHANNEL = "sky:cache:employee:evict";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    private Cache<String, Employee> byUsername;
+    private Cache<Long, Employee> byId;
+    //员工id -> 用户名，按id失效时用来找到用户名缓存的key
+    private final Map<Long, String> usernames = new ConcurrentHashMap<>();
+    //缓存代数，每次失效时递增
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        byUsername = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getEmployeeMaxSize())
+                .expireAfterWrite(cacheProperties.getEmployeeTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+        byId = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.getEmployeeMaxSize())
+                .expireAfterWrite(cacheProperties.getEmployeeTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody());
+            if (body.isEmpty()) {
+                evictAllLocal();
+            } else {
+                evictLocal(Long.valueOf(body));
+            }
+        }, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 根据用户名获取登录所需的员工字段，未命中时调用loader查询数据库；员工不存在时不缓存
+     *
+     * @param username
+     * @param loader
+     * @return
+     */
+    public Employee getByUsername(String username, Function<String, Employee> loader) {
+        long start = generation.get();
+        Employee employee = byUsername.get(username, key -> {
+            Employee loaded = loader.apply(key);
+            if (loaded != null && loaded.getId() != null) {
+                usernames.put(loaded.getId(), key);
+            }
+            return loaded;
+        });
+        //查询期间发生过失效，结果可能是失效前的旧数据，不保留在缓存中
+        if (employee != null && generation.get() != start) {
+            byUsername.asMap().remove(username, employee);
+        }
+        return employee;
+    }
+
+    /**
+     * 根据id获取员工信息，未命中时调用loader查询数据库；员工不存在时不缓存
+     *
+     * @param id
+     * @param loader
+     * @return
+     */
+    public Employee getById(Long id, Function<Long, Employee> loader) {
+        long start = generation.get();
+        Employee employee = byId.get(id, loader);
+        if (employee != null && generation.get() != start) {
+            byId.asMap().remove(id, employee);
+        }
+        return employee;
+    }
+
+    /**
+     * 使指定员工的缓存失效，并通知其他节点
+     *
+     * @param id 员工id，为null时清空全部员工缓存
+     */
+    public void evict(Long id) {
+        if (id == null) {
+            evictAllLocal();
+        } else {
+            evictLocal(id);
+        }
+        try {
+            stringRedisTemplate.convertAndSend(EVICT_CHANNEL, id == null ? "" : id.toString());
+        } catch (Exception e) {
+            log.warn("发送员工缓存失效通知失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 使指定用户名的缓存失效，用于新增员工；新用户名在其他节点上也不可能已被缓存，因此不发送通知
+     *
+     * @param username
+     */
+    public void evictUsername(String username) {
+        if (username != null) {
+            generation.incrementAndGet();
+            byUsername.invalidate(username);
+        }
+    }
+
+    /**
+     * 用户名缓存的key是用户名，而修改员工时只知道id，所以通过id -> 用户名的索引找到key
+     */
+    private void evictLocal(Long id) {
+        generation.incrementAndGet();
+        byId.invalidate(id);
+        String username = usernames.remove(id);
+        if (username != null) {
+            byUsername.invalidate(username);
+        }
+    }
+
+    private void evictAllLocal() {
+        generation.incrementAndGet();
+        byId.invalidateAll();
+        byUsername.invalidateAll();
+        usernames.clear();
+    }
+}
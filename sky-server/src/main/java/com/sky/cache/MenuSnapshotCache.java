@@ -0,0 +1,294 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.CacheProperties;
+import com.sky.result.Result;
+import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 用户端菜单快照
+ * 按分类保存该分类下起售的菜品（含口味）或套餐，直接保存序列化后的响应体，请求时不再查询数据库和序列化；
+ * 菜品、套餐、分类变更后只失效受影响的分类，下次访问时重新构建，并通过发布订阅通知其他节点；
+ * 不存在的分类不缓存也不写入Redis，避免任意分类id把快照撑大。
+ * 每个分类有一个版本号，失效时递增；构建前记下版本号，写回时版本号已变化则放弃写入，
+ * 避免在事务提交前构建的旧菜单在失效之后写回缓存
+ */
+@Component
+@Slf4j
+public class MenuSnapshotCache {
+
+    //Redis中保存菜单快照的hash，field为分类id
+    private static final String REDIS_KEY = "sky:cache:menu";
+    //菜单快照失效通知的频道，消息内容为分类id，为空表示清空全部
+    private static final String EVICT_CHANNEL = "sky:cache:menu:evict";
+    //各分类菜单快照的版本号，field为分类id
+    private static final String VERSION_KEY = "sky:cache:menu:version";
+
+    //KEYS: 快照hash、版本号hash；ARGV: 分类id、快照、过期时间（秒）、构建前的版本号；版本号未变化时写入并返回1
+    //只在hash第一次创建时设置过期时间，之后的写入不再延长，整个hash到期后统一重建
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[2], ARGV[1]) or '0') ~= ARGV[4] then return 0 end " +
+            "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+            "if redis.call('TTL', KEYS[1]) < 0 then redis.call('EXPIRE', KEYS[1], ARGV[3]) end " +
+            "return 1", Long.class);
+    //套餐分类的类型值
+    private static final Integer SETMEAL_CATEGORY = 2;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    //与接口返回使用相同的序列化格式
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private Cache<Long, MenuSnapshot> snapshots;
+    //不存在的分类返回的空菜单
+    private MenuSnapshot empty;
+    //本地快照的代数，本节点或其他节点失效时递增
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        snapshots = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(cacheProperties.getMenuLocalTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+        empty = new MenuSnapshot(serialize(Collections.emptyList()));
+
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody());
+            generation.incrementAndGet();
+            if (body.isEmpty()) {
+                snapshots.invalidateAll();
+            } else {
+                snapshots.invalidate(Long.valueOf(body));
+            }
+        }, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * 获取分类的菜单快照，本地没有时依次从Redis加载、从数据库构建
+     * 同一分类同时只有一个线程构建；分类不存在时返回空菜单，不缓存
+     *
+     * @param categoryId
+     * @return
+     */
+    public MenuSnapshot get(Long categoryId) {
+        if (categoryId == null) {
+            throw new IllegalArgumentException("categoryId is required");
+        }
+        long start = generation.get();
+        MenuSnapshot snapshot = snapshots.get(categoryId, this::load);
+        if (snapshot == null) {
+            return empty;
+        }
+        //构建期间发生过失效，快照可能是失效前的旧数据，本次返回但不保留在本地
+        if (generation.get() != start) {
+            snapshots.asMap().remove(categoryId, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 失效指定分类的菜单快照，在事务中调用时等事务提交后再失效
+     *
+     * @param categoryIds
+     */
+    public void invalidate(Collection<Long> categoryIds) {
+        List<String> fields = categoryIds.stream()
+                .filter(id -> id != null)
+                .distinct()
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(fields);
+                }
+            });
+        } else {
+            doInvalidate(fields);
+        }
+    }
+
+    public void invalidate(Long categoryId) {
+        invalidate(Collections.singletonList(categoryId));
+    }
+
+    private void doInvalidate(List<String> fields) {
+        generation.incrementAndGet();
+        fields.forEach(field -> snapshots.invalidate(Long.valueOf(field)));
+        try {
+            if (cacheProperties.isMenuRedisEnabled()) {
+                //先递增版本号再删除，版本号变化前写入的快照会被删除，变化后的写入会被脚本拒绝
+                fields.forEach(field -> stringRedisTemplate.opsForHash().increment(VERSION_KEY, field, 1));
+                stringRedisTemplate.opsForHash().delete(REDIS_KEY, fields.toArray());
+            }
+            fields.forEach(field -> stringRedisTemplate.convertAndSend(EVICT_CHANNEL, field));
+        } catch (Exception e) {
+            log.warn("清除菜单快照失败：{}", e.getMessage());
+        }
+    }
+
+    private MenuSnapshot load(Long categoryId) {
+        String field = String.valueOf(categoryId);
+        String version = null;
+        if (cacheProperties.isMenuRedisEnabled()) {
+            try {
+                Object json = stringRedisTemplate.opsForHash().get(REDIS_KEY, field);
+                if (json != null) {
+                    return new MenuSnapshot(json.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                Object current = stringRedisTemplate.opsForHash().get(VERSION_KEY, field);
+                version = current == null ? "0" : current.toString();
+            } catch (Exception e) {
+                //Redis不可用时直接从数据库构建，也不写回Redis
+                log.warn("读取菜单快照失败：{}", e.getMessage());
+            }
+        }
+
+        byte[] body = build(categoryId);
+        if (body == null) {
+            return null;
+        }
+        log.debug("构建菜单快照：分类{}，{}字节", categoryId, body.length);
+        if (version != null) {
+            try {
+                stringRedisTemplate.execute(FILL_SCRIPT, Arrays.asList(REDIS_KEY, VERSION_KEY),
+                        field, new String(body, StandardCharsets.UTF_8),
+                        String.valueOf(cacheProperties.getMenuRedisTtlSeconds()), version);
+            } catch (Exception e) {
+                log.warn("写入菜单快照失败：{}", e.getMessage());
+            }
+        }
+        return new MenuSnapshot(body);
+    }
+
+    /**
+     * 从数据库构建分类的菜单：菜品分类为起售菜品及其口味（两次查询），套餐分类为起售套餐，停用的分类为空菜单
+     * 分类不存在时返回null
+     */
+    private byte[] build(Long categoryId) {
+        Category category = categoryMapper.getById(categoryId);
+        if (category == null) {
+            return null;
+        }
+        List<?> items;
+        if (!StatusConstant.ENABLE.equals(category.getStatus())) {
+            items = Collections.emptyList();
+        } else if (SETMEAL_CATEGORY.equals(category.getType())) {
+            items = setmealMapper.list(Setmeal.builder()
+                    .categoryId(categoryId)
+                    .status(StatusConstant.ENABLE)
+                    .build());
+        } else {
+            items = buildDishes(category);
+        }
+
+        return serialize(items);
+    }
+
+    private byte[] serialize(List<?> items) {
+        try {
+            return objectMapper.writeValueAsBytes(Result.success(items));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<DishVO> buildDishes(Category category) {
+        List<Dish> dishes = dishMapper.list(Dish.builder()
+                .categoryId(category.getId())
+                .status(StatusConstant.ENABLE)
+                .build());
+        if (dishes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> dishIds = dishes.stream().map(Dish::getId).collect(Collectors.toList());
+        Map<Long, List<DishFlavor>> flavorsByDishId = dishFlavorMapper.getByDishIds(dishIds).stream()
+                .collect(Collectors.groupingBy(DishFlavor::getDishId));
+
+        List<DishVO> dishVOs = new ArrayList<>(dishes.size());
+        for (Dish dish : dishes) {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setCategoryName(category.getName());
+            dishVO.setFlavors(flavorsByDishId.getOrDefault(dish.getId(), new ArrayList<>()));
+            dishVOs.add(dishVO);
+        }
+        return dishVOs;
+    }
+
+    /**
+     * 序列化后的菜单和对应的ETag，ETag由内容摘要生成，各节点对同一内容得到相同的ETag
+     */
+    public static final class MenuSnapshot {
+
+        private final byte[] body;
+        private final String etag;
+
+        private MenuSnapshot(byte[] body) {
+            this.body = body;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
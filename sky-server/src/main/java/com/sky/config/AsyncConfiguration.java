@@ -0,0 +1,52 @@
+package com.sky.config;
+
+import com.sky.context.BaseContext;
+import com.sky.properties.AsyncProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 异步任务配置
+ * 提交任务时复制当前请求的上下文（员工id），后台线程中的公共字段填充等逻辑可以正常取到操作人
+ */
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfiguration {
+
+    /**
+     * 复制BaseContext的任务装饰器
+     * @return
+     */
+    @Bean
+    public TaskDecorator baseContextTaskDecorator() {
+        return BaseContext::wrap;
+    }
+
+    /**
+     * @Async默认使用的线程池，也可以直接注入后提交任务或作为CompletableFuture的执行器
+     * @param asyncProperties
+     * @param baseContextTaskDecorator
+     * @return
+     */
+    @Bean(name = "taskExecutor")
+    public ThreadPoolTaskExecutor taskExecutor(AsyncProperties asyncProperties, TaskDecorator baseContextTaskDecorator) {
+        log.info("开始创建异步任务线程池...");
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncProperties.getCorePoolSize());
+        executor.setMaxPoolSize(asyncProperties.getMaxPoolSize());
+        executor.setQueueCapacity(asyncProperties.getQueueCapacity());
+        executor.setThreadNamePrefix("sky-async-");
+        executor.setTaskDecorator(baseContextTaskDecorator);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,82 @@
+package com.sky.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.spring.boot.autoconfigure.DruidDataSourceBuilder;
+import com.sky.datasource.ReadWriteRoutingDataSource;
+import com.sky.datasource.ReplicaLagMonitor;
+import com.sky.properties.ReplicaProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读写分离数据源配置，sky.datasource.replica.enabled为true时生效
+ * 主库和从库使用同一份Druid连接池参数（spring.datasource.druid），从库只替换连接地址和账号
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sky.datasource.replica", name = "enabled", havingValue = "true")
+@Slf4j
+public class DataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.druid")
+    public DruidDataSource primaryDataSource() {
+        return DruidDataSourceBuilder.create().build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.druid")
+    public DruidDataSource replicaDataSource() {
+        return DruidDataSourceBuilder.create().build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DruidDataSource replicaDataSource,
+                                               ReplicaProperties replicaProperties) {
+        return new ReplicaLagMonitor(replicaDataSource, replicaProperties.getMaxLagSeconds());
+    }
+
+    /**
+     * 对外提供的数据源：延迟获取连接的代理 -> 路由数据源 -> 主库/从库连接池
+     * @param primaryDataSource
+     * @param replicaDataSource
+     * @param replicaProperties
+     * @param replicaLagMonitor
+     * @return
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DruidDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DruidDataSource replicaDataSource,
+                                 ReplicaProperties replicaProperties,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        log.info("开启读写分离，从库：{}:{}", replicaProperties.getHost(), replicaProperties.getPort());
+        //连接池在第一次获取连接时才初始化，这里替换的地址和账号会生效
+        replicaDataSource.setUrl(primaryDataSource.getUrl().replaceFirst(
+                "//[^/]+/[^?]+", "//" + replicaProperties.getHost() + ":" + replicaProperties.getPort()
+                        + "/" + replicaProperties.getDatabase()));
+        replicaDataSource.setUsername(replicaProperties.getUsername());
+        replicaDataSource.setPassword(replicaProperties.getPassword());
+        replicaDataSource.setName("replica");
+        primaryDataSource.setName("primary");
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+        targetDataSources.put(ReadWriteRoutingDataSource.REPLICA, replicaDataSource);
+
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicaLagMonitor);
+        routingDataSource.setTargetDataSources(targetDataSources);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sky.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.sky.cache.CategoryCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * 自定义指标配置
+ * 接口耗时由Spring MVC自动统计（http.server.requests），SQL耗时见MapperMetricsInterceptor
+ */
+@Configuration
+@Slf4j
+public class MetricsConfiguration {
+
+    /**
+     * Druid连接池指标，用于观察连接是否不够用
+     * @param dataSources
+     * @return
+     */
+    @Bean
+    public MeterBinder druidMetrics(Map<String, DruidDataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            log.info("注册连接池指标：{}", name);
+            Gauge.builder("druid.pool.active", dataSource, DruidDataSource::getActiveCount)
+                    .description("正在使用的连接数").tag("pool", name).register(registry);
+            Gauge.builder("druid.pool.idle", dataSource, DruidDataSource::getPoolingCount)
+                    .description("池中空闲的连接数").tag("pool", name).register(registry);
+            Gauge.builder("druid.pool.max", dataSource, DruidDataSource::getMaxActive)
+                    .description("最大连接数").tag("pool", name).register(registry);
+            Gauge.builder("druid.pool.waiting", dataSource, DruidDataSource::getWaitThreadCount)
+                    .description("正在等待获取连接的线程数").tag("pool", name).register(registry);
+            FunctionCounter.builder("druid.pool.wait", dataSource, DruidDataSource::getNotEmptyWaitCount)
+                    .description("获取连接时发生等待的次数").tag("pool", name).register(registry);
+            FunctionCounter.builder("druid.pool.create.errors", dataSource, DruidDataSource::getCreateErrorCount)
+                    .description("创建连接失败的次数").tag("pool", name).register(registry);
+            FunctionCounter.builder("druid.pool.abandoned", dataSource, DruidDataSource::getRemoveAbandonedCount)
+                    .description("借出超时被强制回收的连接数，大于0说明存在连接泄漏").tag("pool", name).register(registry);
+            FunctionCounter.builder("druid.pscache", dataSource, DruidDataSource::getCachedPreparedStatementHitCount)
+                    .description("预编译语句缓存查询次数").tag("pool", name).tag("result", "hit").register(registry);
+            FunctionCounter.builder("druid.pscache", dataSource, DruidDataSource::getCachedPreparedStatementMissCount)
+                    .description("预编译语句缓存查询次数").tag("pool", name).tag("result", "miss").register(registry);
+            FunctionCounter.builder("druid.sql.executions", dataSource, DruidDataSource::getExecuteCount)
+                    .description("SQL执行次数").tag("pool", name).register(registry);
+            FunctionCounter.builder("druid.sql.errors", dataSource, DruidDataSource::getErrorCount)
+                    .description("SQL执行出错次数").tag("pool", name).register(registry);
+        });
+    }
+
+    /**
+     * 分类缓存命中指标
+     * @param categoryCache
+     * @return
+     */
+    @Bean
+    public MeterBinder categoryCacheMetrics(CategoryCache categoryCache) {
+        return registry -> {
+            FunctionCounter.builder("sky.cache.category", categoryCache, CategoryCache::getLocalHits)
+                    .description("分类缓存查询次数").tag("result", "local_hit").register(registry);
+            FunctionCounter.builder("sky.cache.category", categoryCache, CategoryCache::getRedisHits)
+                    .description("分类缓存查询次数").tag("result", "redis_hit").register(registry);
+            FunctionCounter.builder("sky.cache.category", categoryCache, CategoryCache::getMisses)
+                    .description("分类缓存查询次数").tag("result", "miss").register(registry);
+        };
+    }
+}
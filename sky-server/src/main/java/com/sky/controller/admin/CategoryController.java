@@ -26,7 +26,7 @@ public class CategoryController {
      */
     @GetMapping("/page")
     public Result<PageResult> page(CategoryPageQueryDTO categoryPageQueryDTO) {
-        log.info("分页查询：{}", categoryPageQueryDTO);
+        log.debug("分页查询：{}", categoryPageQueryDTO);
         PageResult pageResult = categoryService.pageQuery(categoryPageQueryDTO);
         return Result.success(pageResult);
     }
@@ -88,7 +88,7 @@ public class CategoryController {
      */
     @GetMapping("/list")
     public Result<List<Category>> getByType(String type) {
-        log.info("根据类型查询分类：{}", type);
+        log.debug("根据类型查询分类：{}", type);
         List<Category> list = categoryService.getByType(type);
         return Result.success(list);
     }
@@ -2,7 +2,9 @@ package com.sky.controller.admin;
 
 import com.sky.constant.MessageConstant;
 import com.sky.result.Result;
+import com.sky.service.ImageService;
 import com.sky.utils.AliOssUtil;
+import com.sky.vo.ImageUploadVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +15,8 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -25,6 +29,8 @@ public class CommonController {
 
     @Autowired
     private AliOssUtil aliOssUtil;
+    @Autowired
+    private ImageService imageService;
 
     /**
      * 文件上传
@@ -34,7 +40,7 @@ public class CommonController {
     @PostMapping("/upload")
     @ApiOperation("文件上传")
     public Result<String> upload(MultipartFile file){
-        log.info("文件上传：{}",file);
+        log.info("文件上传：{}",file.getOriginalFilename());
 
         try {
             //原始文件名
@@ -44,12 +50,51 @@ public class CommonController {
             //构造新文件名称
             String objectName = UUID.randomUUID().toString() + extension;
 
-            //文件的请求路径
-            String filePath = aliOssUtil.upload(file.getBytes(), objectName);
-            return Result.success(filePath);
+            //文件的请求路径，直接上传输入流，不把整个文件复制到堆内存中
+            try (InputStream inputStream = file.getInputStream()) {
+                String filePath = aliOssUtil.upload(inputStream, file.getSize(), objectName);
+                return Result.success(filePath);
+            }
         } catch (IOException e) {
             log.error("文件上传失败：{}", e);
         }
         return Result.error(MessageConstant.UPLOAD_FAILED);
     }
+
+    /**
+     * 图片上传，同时生成缩略图和压缩图
+     * @param file
+     * @return
+     */
+    @PostMapping("/upload/image")
+    @ApiOperation("图片上传")
+    public Result<ImageUploadVO> uploadImage(MultipartFile file){
+        log.info("图片上传：{}",file.getOriginalFilename());
+
+        try {
+            String originalFilename = file.getOriginalFilename();
+            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+            String objectName = UUID.randomUUID().toString() + extension;
+
+            //先上传原图
+            String filePath;
+            try (InputStream inputStream = file.getInputStream()) {
+                filePath = aliOssUtil.upload(inputStream, file.getSize(), objectName);
+            }
+
+            //再生成其他规格，存放在原图旁边
+            Map<String, String> variants;
+            try (InputStream inputStream = file.getInputStream()) {
+                variants = imageService.createVariants(inputStream, objectName);
+            }
+
+            return Result.success(ImageUploadVO.builder()
+                    .url(filePath)
+                    .variants(variants)
+                    .build());
+        } catch (IOException e) {
+            log.error("图片上传失败：{}", e);
+        }
+        return Result.error(MessageConstant.UPLOAD_FAILED);
+    }
 }
@@ -3,22 +3,33 @@ package com.sky.controller.admin;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import com.sky.constant.JwtClaimsConstant;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
 import com.sky.dto.EmployeeDTO;
 import com.sky.dto.EmployeeLoginDTO;
 import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
+import com.sky.exception.AccountNotFoundException;
+import com.sky.exception.PasswordErrorException;
 import com.sky.properties.JwtProperties;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.security.TokenRevocationService;
 import com.sky.service.EmployeeService;
+import com.sky.throttle.LoginThrottle;
 import com.sky.utils.JwtUtil;
 import com.sky.vo.EmployeeLoginVO;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * 员工管理
@@ -32,6 +43,10 @@ public class EmployeeController {
     private EmployeeService employeeService;
     @Autowired
     private JwtProperties jwtProperties;
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
 
     /**
      * 登录
@@ -40,36 +55,88 @@ public class EmployeeController {
      * @return
      */
     @PostMapping("/login")
-    public Result<EmployeeLoginVO> login(@RequestBody EmployeeLoginDTO employeeLoginDTO) {
-        log.info("员工登录：{}", employeeLoginDTO);
+    public Result<EmployeeLoginVO> login(@RequestBody EmployeeLoginDTO employeeLoginDTO, HttpServletRequest request) {
+        log.info("员工登录：{}", employeeLoginDTO.getUsername());
 
-        Employee employee = employeeService.login(employeeLoginDTO);
+        //登录限流，超过次数的请求不再查询数据库；经过可信代理时getRemoteAddr()已解析为客户端真实IP
+        loginThrottle.acquire(employeeLoginDTO.getUsername(), request.getRemoteAddr());
 
-        //登录成功后，生成jwt令牌
-        Map<String, Object> claims = new HashMap<>();
-        claims.put(JwtClaimsConstant.EMP_ID, employee.getId());
-        String token = JwtUtil.createJWT(
-                jwtProperties.getAdminSecretKey(),
-                jwtProperties.getAdminTtl(),
-                claims);
+        Employee employee;
+        try {
+            employee = employeeService.login(employeeLoginDTO);
+        } catch (AccountNotFoundException | PasswordErrorException ex) {
+            //只有账号不存在或密码错误计入该用户名的失败次数，登录成功不计入
+            loginThrottle.recordFailure(employeeLoginDTO.getUsername());
+            throw ex;
+        }
+
+        //登录成功后，生成jwt令牌：短期的访问令牌和长期的刷新令牌，属于同一个会话
+        String sessionId = UUID.randomUUID().toString();
+        String token = createToken(employee.getId(), sessionId, JwtClaimsConstant.ACCESS_TOKEN, jwtProperties.getAdminTtl());
+        String refreshToken = createToken(employee.getId(), sessionId, JwtClaimsConstant.REFRESH_TOKEN, jwtProperties.getAdminRefreshTtl());
 
         EmployeeLoginVO employeeLoginVO = EmployeeLoginVO.builder()
                 .id(employee.getId())
                 .userName(employee.getUsername())
                 .name(employee.getName())
                 .token(token)
+                .refreshToken(refreshToken)
                 .build();
 
         return Result.success(employeeLoginVO);
     }
 
+    /**
+     * 使用刷新令牌换取新的访问令牌
+     * 刷新令牌无效、所属会话已退出或员工已被禁用时响应401，需要重新登录
+     *
+     * @return
+     */
+    @PostMapping("/refresh")
+    public Result<EmployeeLoginVO> refresh(HttpServletRequest request, HttpServletResponse response) {
+        String refreshToken = request.getHeader(jwtProperties.getAdminRefreshTokenName());
+        try {
+            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), refreshToken);
+            if (!JwtClaimsConstant.REFRESH_TOKEN.equals(claims.get(JwtClaimsConstant.TOKEN_TYPE))) {
+                throw new IllegalArgumentException("not a refresh token");
+            }
+            Long empId = Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString());
+            String sessionId = claims.get(JwtClaimsConstant.SESSION_ID).toString();
+            Long issuedAt = claims.getIssuedAt() == null ? null : claims.getIssuedAt().getTime();
+            Employee employee = employeeService.getById(empId);
+            if (tokenRevocationService.isRevoked(sessionId, empId, issuedAt)
+                    || employee == null || StatusConstant.DISABLE.equals(employee.getStatus())) {
+                throw new IllegalStateException("session revoked");
+            }
+
+            String token = createToken(empId, sessionId, JwtClaimsConstant.ACCESS_TOKEN, jwtProperties.getAdminTtl());
+            EmployeeLoginVO employeeLoginVO = EmployeeLoginVO.builder()
+                    .id(empId)
+                    .userName(employee.getUsername())
+                    .name(employee.getName())
+                    .token(token)
+                    .refreshToken(refreshToken)
+                    .build();
+            return Result.success(employeeLoginVO);
+        } catch (Exception ex) {
+            response.setStatus(401);
+            return Result.error(MessageConstant.USER_NOT_LOGIN);
+        }
+    }
+
     /**
      * 退出
+     * 吊销当前会话，该会话的访问令牌和刷新令牌都立即失效
      *
      * @return
      */
     @PostMapping("/logout")
-    public Result<String> logout() {
+    public Result<String> logout(HttpServletRequest request) {
+        Object sessionId = request.getAttribute(JwtClaimsConstant.SESSION_ID);
+        if (sessionId != null) {
+            tokenRevocationService.revokeSession(sessionId.toString(),
+                    System.currentTimeMillis() + jwtProperties.getAdminRefreshTtl());
+        }
         return Result.success();
     }
 
@@ -85,6 +152,18 @@ public class EmployeeController {
         return Result.success();
     }
 
+    /**
+     * 批量新增员工
+     *
+     * @return
+     */
+    @PostMapping("/batch")
+    public Result addEmployeeBatch(@RequestBody List<EmployeeDTO> employeeDTOs) {
+        log.info("批量新增员工：{}人", employeeDTOs.size());
+        employeeService.addEmployeeBatch(employeeDTOs);
+        return Result.success();
+    }
+
     /**
      * 分页查询
      * @param 、、page
@@ -93,7 +172,7 @@ public class EmployeeController {
      */
     @GetMapping("/page")
     public Result<PageResult> Page(EmployeePageQueryDTO employeePageQueryDTO){
-        log.info("分页查询：{}", employeePageQueryDTO);
+        log.debug("分页查询：{}", employeePageQueryDTO);
         PageResult pageResult = employeeService.pageQuery(employeePageQueryDTO);
         return Result.success(pageResult);
     }
@@ -118,7 +197,7 @@ public class EmployeeController {
      */
     @GetMapping("/{id}")
     public Result<Employee> getById(@PathVariable Long id){
-        log.info("员工信息：{}", id);
+        log.debug("员工信息：{}", id);
         Employee employee = employeeService.getById(id);
         return Result.success(employee);
     }
@@ -134,4 +213,21 @@ public class EmployeeController {
         employeeService.update(employeeDTO);
         return Result.success();
     }
+
+    /**
+     * 生成管理端jwt令牌
+     *
+     * @param empId
+     * @param sessionId 会话id
+     * @param tokenType 令牌类型，访问令牌或刷新令牌
+     * @param ttlMillis
+     * @return
+     */
+    private String createToken(Long empId, String sessionId, String tokenType, long ttlMillis) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtClaimsConstant.EMP_ID, empId);
+        claims.put(JwtClaimsConstant.SESSION_ID, sessionId);
+        claims.put(JwtClaimsConstant.TOKEN_TYPE, tokenType);
+        return JwtUtil.createJWT(jwtProperties.getAdminSecretKey(), ttlMillis, claims);
+    }
 }
@@ -0,0 +1,34 @@
+package com.sky.controller.admin;
+
+import com.sky.interceptor.SlowQueryRecorder;
+import com.sky.result.Result;
+import com.sky.vo.SlowQueryVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 慢查询
+ */
+@Slf4j
+@RequestMapping("/admin/slow-query")
+@RestController
+public class SlowQueryController {
+    @Autowired
+    private SlowQueryRecorder slowQueryRecorder;
+
+    /**
+     * 查询最近耗时最高的慢查询
+     * @param limit 返回条数
+     * @return
+     */
+    @GetMapping("/top")
+    public Result<List<SlowQueryVO>> top(@RequestParam(defaultValue = "10") int limit) {
+        return Result.success(slowQueryRecorder.top(Math.max(1, limit)));
+    }
+}
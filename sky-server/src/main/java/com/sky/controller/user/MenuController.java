@@ -0,0 +1,69 @@
+package com.sky.controller.user;
+
+import com.sky.cache.MenuSnapshotCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 用户端菜单浏览
+ * 直接返回预先序列化的菜单快照，客户端携带的ETag未变化时返回304
+ */
+@Slf4j
+@RequestMapping("/user")
+@RestController
+public class MenuController {
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    /**
+     * 根据分类id查询菜品（菜品分类）或套餐（套餐分类）
+     * @param categoryId
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    @GetMapping({"/dish/list", "/setmeal/list"})
+    public void list(@RequestParam Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("查询分类菜单：{}", categoryId);
+        MenuSnapshotCache.MenuSnapshot snapshot = menuSnapshotCache.get(categoryId);
+
+        response.setHeader(HttpHeaders.ETAG, snapshot.getEtag());
+        //客户端每次都需要校验，内容未变化时只返回304
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), snapshot.getEtag())) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(snapshot.getBody().length);
+        response.getOutputStream().write(snapshot.getBody());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,39 @@
+package com.sky.controller.user;
+
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.properties.OrderProperties;
+import com.sky.result.Result;
+import com.sky.service.OrderService;
+import com.sky.vo.OrderSubmitVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 用户端订单
+ */
+@Slf4j
+@RequestMapping("/user/order")
+@RestController("userOrderController")
+public class OrderController {
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderProperties orderProperties;
+
+    /**
+     * 用户下单
+     * @param ordersSubmitDTO
+     * @param request
+     * @return
+     */
+    @PostMapping("/submit")
+    public Result<OrderSubmitVO> submit(@RequestBody OrdersSubmitDTO ordersSubmitDTO, HttpServletRequest request) {
+        log.debug("用户下单：{}", ordersSubmitDTO);
+        String idempotencyKey = request.getHeader(orderProperties.getIdempotencyHeader());
+        OrderSubmitVO orderSubmitVO = orderService.submitOrder(ordersSubmitDTO, idempotencyKey);
+        return Result.success(orderSubmitVO);
+    }
+}
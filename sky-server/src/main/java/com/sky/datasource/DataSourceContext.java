@@ -0,0 +1,33 @@
+package com.sky.datasource;
+
+/**
+ * 当前线程的数据源选择，由ReadOnlyAspect在只读方法前后设置
+ */
+public class DataSourceContext {
+
+    private static final ThreadLocal<Boolean> readOnly = new ThreadLocal<>();
+
+    /**
+     * 标记当前线程进入只读方法，返回原来的标记，退出时用于恢复
+     *
+     * @return
+     */
+    public static Boolean enterReadOnly() {
+        Boolean previous = readOnly.get();
+        readOnly.set(Boolean.TRUE);
+        return previous;
+    }
+
+    public static void restore(Boolean previous) {
+        if (previous == null) {
+            readOnly.remove();
+        } else {
+            readOnly.set(previous);
+        }
+    }
+
+    public static boolean isReadOnly() {
+        return Boolean.TRUE.equals(readOnly.get());
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.sky.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 读写分离的路由数据源
+ * 只读事务（@Transactional(readOnly = true)）或@ReadOnly方法中的查询走从库，其余走主库；
+ * 读写事务中始终走主库，从库延迟过大或不可用时只读查询也退回主库
+ * 需要由LazyConnectionDataSourceProxy包装，使事务的只读标记在真正获取连接前已经设置
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || (!TransactionSynchronizationManager.isActualTransactionActive() && DataSourceContext.isReadOnly());
+        return readOnly && replicaLagMonitor.isReplicaAvailable() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sky.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 定期检查从库的复制延迟
+ * 延迟超过上限、复制中断或从库连接失败时标记为不可用，只读查询退回主库，恢复后自动切回
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final DataSource replicaDataSource;
+    private final long maxLagSeconds;
+
+    private volatile boolean replicaAvailable = true;
+    private volatile long lagSeconds;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagSeconds) {
+        this.replicaDataSource = replicaDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    /**
+     * 最近一次检查得到的复制延迟（秒），复制中断或检查失败时为-1
+     *
+     * @return
+     */
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${sky.datasource.replica.lag-check-millis:5000}")
+    public void check() {
+        long lag;
+        try {
+            lag = queryLagSeconds();
+        } catch (SQLException e) {
+            log.warn("检查从库复制延迟失败：{}", e.getMessage());
+            lag = -1;
+        }
+        lagSeconds = lag;
+
+        boolean available = lag >= 0 && lag <= maxLagSeconds;
+        if (available != replicaAvailable) {
+            log.warn(available ? "从库已恢复，只读查询切回从库" : "从库不可用或延迟过大（{}秒），只读查询切回主库", lag);
+        }
+        replicaAvailable = available;
+    }
+
+    /**
+     * 查询从库的复制延迟
+     * MySQL 8.0.22起使用SHOW REPLICA STATUS，旧版本使用SHOW SLAVE STATUS；
+     * 没有复制状态的库（例如本地测试用的独立实例）视为没有延迟
+     */
+    private long queryLagSeconds() throws SQLException {
+        try (Connection connection = replicaDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            ResultSet resultSet;
+            String column;
+            try {
+                resultSet = statement.executeQuery("SHOW REPLICA STATUS");
+                column = "Seconds_Behind_Source";
+            } catch (SQLException e) {
+                resultSet = statement.executeQuery("SHOW SLAVE STATUS");
+                column = "Seconds_Behind_Master";
+            }
+            try (ResultSet rs = resultSet) {
+                if (!rs.next()) {
+                    return 0;
+                }
+                long lag = rs.getLong(column);
+                //复制线程未运行时该列为NULL
+                return rs.wasNull() ? -1 : lag;
+            }
+        }
+    }
+}
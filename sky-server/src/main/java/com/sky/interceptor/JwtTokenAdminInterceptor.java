@@ -1,8 +1,12 @@
 package com.sky.interceptor;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.sky.constant.JwtClaimsConstant;
 import com.sky.context.BaseContext;
 import com.sky.properties.JwtProperties;
+import com.sky.security.TokenRevocationService;
 import com.sky.utils.JwtUtil;
 import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
@@ -10,8 +14,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 /**
  * jwt令牌校验的拦截器
@@ -22,6 +33,37 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
 
     @Autowired
     private JwtProperties jwtProperties;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    /**
+     * 已校验令牌的本地缓存：令牌摘要 -> 解析结果
+     * 缓存项在令牌自身的过期时间到达时失效，超过容量上限时按最近最少使用淘汰
+     */
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getAdminTokenCacheSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiration - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     /**
      * 校验jwt
@@ -39,18 +81,22 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
             return true;
         }
 
+        //清除线程上可能残留的上下文，校验失败时不会执行afterCompletion
+        BaseContext.removeCurrentId();
+
         //1、从请求头中获取令牌
         String token = request.getHeader(jwtProperties.getAdminTokenName());
 
         //2、校验令牌
         try {
-            log.info("jwt校验:{}", token);
-            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
+            VerifiedToken verifiedToken = verify(token);
             //获取员工id
-            Long empId = Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString());
-            log.info("当前员工id：{}", empId);
+            Long empId = verifiedToken.empId;
+            log.debug("当前员工id：{}", empId);
             //将员工id放入ThreadLocal
             BaseContext.setCurrentId(empId);
+            //会话id供退出登录时吊销
+            request.setAttribute(JwtClaimsConstant.SESSION_ID, verifiedToken.sessionId);
 
             //3、通过，放行
             return true;
@@ -60,4 +106,82 @@ public class JwtTokenAdminInterceptor implements HandlerInterceptor {
             return false;
         }
     }
+
+    /**
+     * 请求结束后清除ThreadLocal，避免线程池复用线程时把员工id带到下一个请求
+     *
+     * @param request
+     * @param response
+     * @param handler
+     * @param ex
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        BaseContext.removeCurrentId();
+    }
+
+    /**
+     * 校验令牌，同一令牌在有效期内只做一次验签和解析
+     * 吊销检查不能缓存，每次都查询吊销列表（内存中的布隆过滤器，通常不访问Redis）
+     *
+     * @param token
+     * @return
+     */
+    private VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(digest);
+        if (verifiedToken == null || verifiedToken.expiration <= System.currentTimeMillis()) {
+            Claims claims = JwtUtil.parseJWT(jwtProperties.getAdminSecretKey(), token);
+            //刷新令牌只能用于换取访问令牌，不能访问业务接口；没有类型的旧令牌按访问令牌处理
+            if (JwtClaimsConstant.REFRESH_TOKEN.equals(claims.get(JwtClaimsConstant.TOKEN_TYPE))) {
+                throw new IllegalArgumentException("refresh token is not allowed here");
+            }
+            Object sessionId = claims.get(JwtClaimsConstant.SESSION_ID);
+            verifiedToken = new VerifiedToken(
+                    Long.valueOf(claims.get(JwtClaimsConstant.EMP_ID).toString()),
+                    sessionId == null ? null : sessionId.toString(),
+                    claims.getIssuedAt() == null ? null : claims.getIssuedAt().getTime(),
+                    claims.getExpiration().getTime());
+            verifiedTokens.put(digest, verifiedToken);
+        }
+
+        if (tokenRevocationService.isRevoked(verifiedToken.sessionId, verifiedToken.empId, verifiedToken.issuedAt)) {
+            throw new IllegalStateException("token revoked");
+        }
+        return verifiedToken;
+    }
+
+    /**
+     * 计算令牌的SHA-256摘要，缓存中不保存原始令牌
+     *
+     * @param token
+     * @return
+     */
+    private static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 已校验令牌的解析结果
+     */
+    private static final class VerifiedToken {
+
+        private final Long empId;
+        private final String sessionId;
+        private final Long issuedAt;
+        private final long expiration;
+
+        private VerifiedToken(Long empId, String sessionId, Long issuedAt, long expiration) {
+            this.empId = empId;
+            this.sessionId = sessionId;
+            this.issuedAt = issuedAt;
+            this.expiration = expiration;
+        }
+    }
 }
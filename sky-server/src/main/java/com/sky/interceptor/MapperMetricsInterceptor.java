@@ -0,0 +1,82 @@
+package com.sky.interceptor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyBatis拦截器，统计每条映射语句的执行耗时
+ * 指标名sky.mapper，按语句（如EmployeeMapper.pageQuery）、类型和是否出错分组；
+ * 同一次计时同时交给SlowQueryRecorder记录慢查询，不再单独拦截一次
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    private static final String METRIC_NAME = "sky.mapper";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private SlowQueryRecorder slowQueryRecorder;
+
+    //按语句id和结果缓存Timer，避免每次执行都重新构造
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = invocation.proceed();
+            success = true;
+            return result;
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            timer(mappedStatement, success).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            slowQueryRecorder.record(invocation.getArgs(), elapsedNanos);
+        }
+    }
+
+    private Timer timer(MappedStatement mappedStatement, boolean success) {
+        String id = mappedStatement.getId();
+        return timers.computeIfAbsent(success ? id : id + "#error", key -> Timer.builder(METRIC_NAME)
+                .description("MyBatis映射语句执行耗时")
+                .tag("statement", shortName(id))
+                .tag("type", mappedStatement.getSqlCommandType().name())
+                .tag("outcome", success ? "SUCCESS" : "ERROR")
+                .register(meterRegistry));
+    }
+
+    /**
+     * com.sky.mapper.EmployeeMapper.pageQuery -> EmployeeMapper.pageQuery
+     */
+    static String shortName(String statementId) {
+        int method = statementId.lastIndexOf('.');
+        int type = method > 0 ? statementId.lastIndexOf('.', method - 1) : -1;
+        return statementId.substring(type + 1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.sky.interceptor;
+
+import com.sky.properties.SlowQueryProperties;
+import com.sky.vo.SlowQueryVO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 慢查询记录
+ * 由MapperMetricsInterceptor在统计耗时时调用，执行耗时超过阈值的语句写入固定大小的环形缓冲区，只保留最近的记录；
+ * 慢的查询语句在后台线程中执行EXPLAIN采样执行计划，同一条语句在采样间隔内只采样一次
+ */
+@Component
+@Slf4j
+public class SlowQueryRecorder {
+
+    @Autowired
+    private SlowQueryProperties slowQueryProperties;
+    @Autowired
+    @Lazy
+    private DataSource dataSource;
+
+    private AtomicReferenceArray<SlowQueryVO> buffer;
+    private final AtomicLong writeIndex = new AtomicLong();
+
+    //每条语句最近一次采样执行计划的时间
+    private final Map<String, Long> lastExplainMillis = new ConcurrentHashMap<>();
+
+    //执行EXPLAIN的线程，排队满时直接丢弃采样
+    private ThreadPoolExecutor explainExecutor;
+
+    @PostConstruct
+    public void init() {
+        buffer = new AtomicReferenceArray<>(Math.max(1, slowQueryProperties.getBufferSize()));
+        explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * 记录一次语句执行，耗时未达到阈值时忽略
+     *
+     * @param args         Executor方法的参数
+     * @param elapsedNanos 执行耗时（纳秒）
+     */
+    public void record(Object[] args, long elapsedNanos) {
+        if (!slowQueryProperties.isEnabled()) {
+            return;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMillis >= slowQueryProperties.getThresholdMillis()) {
+            record((MappedStatement) args[0], args, elapsedMillis);
+        }
+    }
+
+    /**
+     * 按耗时从高到低返回缓冲区中的慢查询
+     *
+     * @param limit 返回条数
+     * @return
+     */
+    public List<SlowQueryVO> top(int limit) {
+        List<SlowQueryVO> records = new ArrayList<>(buffer.length());
+        for (int i = 0; i < buffer.length(); i++) {
+            SlowQueryVO record = buffer.get(i);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        records.sort(Comparator.comparingLong(SlowQueryVO::getElapsedMillis).reversed());
+        return records.size() > limit ? new ArrayList<>(records.subList(0, limit)) : records;
+    }
+
+    private void record(MappedStatement mappedStatement, Object[] args, long elapsedMillis) {
+        Object parameter = args[1];
+        //分页插件改写后的SQL在6个参数的query方法中传入
+        BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : mappedStatement.getBoundSql(parameter);
+        String statement = MapperMetricsInterceptor.shortName(mappedStatement.getId());
+
+        SlowQueryVO record = SlowQueryVO.builder()
+                .statement(statement)
+                .sql(boundSql.getSql().replaceAll("\\s+", " ").trim())
+                .elapsedMillis(elapsedMillis)
+                .executeTime(LocalDateTime.now())
+                .build();
+        buffer.set((int) (writeIndex.getAndIncrement() % buffer.length()), record);
+        //只记录语句和耗时，不打印参数值
+        log.warn("慢查询：{}，耗时{}ms", statement, elapsedMillis);
+
+        if (slowQueryProperties.isExplainEnabled()
+                && mappedStatement.getSqlCommandType() == SqlCommandType.SELECT
+                && shouldExplain(mappedStatement.getId())) {
+            explainExecutor.execute(() -> explain(mappedStatement, parameter, boundSql, record));
+        }
+    }
+
+    private boolean shouldExplain(String statementId) {
+        long now = System.currentTimeMillis();
+        long interval = TimeUnit.SECONDS.toMillis(slowQueryProperties.getExplainIntervalSeconds());
+        Long last = lastExplainMillis.get(statementId);
+        if (last != null && now - last < interval) {
+            return false;
+        }
+        //并发时只有一个线程能更新成功
+        return last == null
+                ? lastExplainMillis.putIfAbsent(statementId, now) == null
+                : lastExplainMillis.replace(statementId, last, now);
+    }
+
+    /**
+     * 使用原语句的参数执行EXPLAIN，结果写入慢查询记录
+     */
+    private void explain(MappedStatement mappedStatement, Object parameter, BoundSql boundSql, SlowQueryVO record) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            new DefaultParameterHandler(mappedStatement, parameter, boundSql).setParameters(preparedStatement);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        row.put(metaData.getColumnLabel(i), resultSet.getObject(i));
+                    }
+                    rows.add(row);
+                }
+            }
+            record.setExplain(rows);
+            log.info("慢查询执行计划：{}，{}", record.getStatement(), rows);
+        } catch (Exception e) {
+            log.warn("采样执行计划失败：{}，{}", record.getStatement(), e.getMessage());
+        }
+    }
+}
@@ -2,11 +2,16 @@ package com.sky.mapper;
 
 import com.github.pagehelper.Page;
 import com.sky.dto.CategoryPageQueryDTO;
+import com.sky.dto.CategoryRelationDTO;
 import com.sky.entity.Category;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -19,6 +24,31 @@ public interface CategoryMapper {
      */
     Page<Category> pageQuery(CategoryPageQueryDTO categoryPageQueryDTO);
 
+    /**
+     * 游标分页查询，从上一页最后一条记录之后开始取
+     * @param name 分类名称
+     * @param type 分类类型
+     * @param lastSort 上一页最后一条记录的排序值，为null时从第一条开始
+     * @param lastCreateTime 上一页最后一条记录的创建时间
+     * @param lastId 上一页最后一条记录的id
+     * @param limit 查询条数
+     * @return
+     */
+    List<Category> pageQueryByCursor(@Param("name") String name,
+                                     @Param("type") Integer type,
+                                     @Param("lastSort") Integer lastSort,
+                                     @Param("lastCreateTime") LocalDateTime lastCreateTime,
+                                     @Param("lastId") Long lastId,
+                                     @Param("limit") int limit);
+
+    /**
+     * 根据条件统计分类数量
+     * @param name 分类名称
+     * @param type 分类类型
+     * @return
+     */
+    long countByCondition(@Param("name") String name, @Param("type") Integer type);
+
 
     /**
      * 新增分类
@@ -34,6 +64,32 @@ public interface CategoryMapper {
      */
     void update(Category category);
 
+    /**
+     * 根据id锁定分类记录，在事务提交前其他事务不能修改或删除该分类
+     * @param id
+     * @return 分类不存在时返回null
+     */
+    @Select("select id from category where id = #{id} for update")
+    Long lockById(Long id);
+
+    /**
+     * 根据id对分类记录加共享锁，新增或修改菜品、套餐时使用
+     * 与删除分类时的排他锁互斥，删除分类的事务提交前不能向该分类写入菜品或套餐
+     * @param id
+     * @return 分类不存在时返回null
+     */
+    @Select("select id from category where id = #{id} lock in share mode")
+    Long lockByIdInShareMode(Long id);
+
+    /**
+     * 查询分类是否关联了菜品或套餐，一次查询完成两项检查，找到一条关联记录即停止扫描
+     * @param id
+     * @return
+     */
+    @Select("select exists(select 1 from dish where category_id = #{id}) as dish_related, " +
+            "exists(select 1 from setmeal where category_id = #{id}) as setmeal_related")
+    CategoryRelationDTO getRelation(Long id);
+
     /**
      * 根据id删除分类
      * @param id
@@ -47,4 +103,19 @@ public interface CategoryMapper {
      * @return
      */
     List<Category> getByType(String type);
-}
\ No newline at end of file
+
+    /**
+     * 根据id批量查询分类的id和名称
+     * @param ids
+     * @return
+     */
+    List<Category> getNamesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 根据id查询分类
+     * @param id
+     * @return
+     */
+    @Select("select * from category where id = #{id}")
+    Category getById(Long id);
+}
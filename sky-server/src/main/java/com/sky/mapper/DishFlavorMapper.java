@@ -0,0 +1,39 @@
+package com.sky.mapper;
+
+import com.sky.entity.DishFlavor;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface DishFlavorMapper {
+
+    /**
+     * 批量插入口味，一条多行insert语句，插入后回填每条口味的主键
+     * @param flavors
+     */
+    void insertBatch(@Param("flavors") List<DishFlavor> flavors);
+
+    /**
+     * 根据菜品id批量删除口味
+     * @param dishIds
+     */
+    void deleteByDishIds(@Param("dishIds") List<Long> dishIds);
+
+    /**
+     * 根据菜品id批量查询口味
+     * @param dishIds
+     * @return
+     */
+    List<DishFlavor> getByDishIds(@Param("dishIds") List<Long> dishIds);
+
+    /**
+     * 根据菜品id查询口味
+     * @param dishId
+     * @return
+     */
+    @Select("select * from dish_flavor where dish_id = #{dishId}")
+    List<DishFlavor> getByDishId(Long dishId);
+}
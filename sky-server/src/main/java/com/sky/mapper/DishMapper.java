@@ -1,8 +1,17 @@
 package com.sky.mapper;
 
+import com.github.pagehelper.Page;
+import com.sky.annotation.AutoFill;
+import com.sky.dto.DishPageQueryDTO;
+import com.sky.entity.Dish;
+import com.sky.enumeration.OperationType;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface DishMapper {
     /**
@@ -12,4 +21,67 @@ public interface DishMapper {
      */
     @Select("select count(*) from dish where category_id = #{categoryId}")
     Integer countByCategoryId(Long categoryId);
+
+    /**
+     * 新增菜品，插入后回填主键
+     * @param dish
+     */
+    @AutoFill(value = OperationType.INSERT)
+    void insert(Dish dish);
+
+    /**
+     * 菜品分页查询，只查询菜品表，分类名称和口味由调用方批量查询后组装
+     * @param dishPageQueryDTO
+     * @return
+     */
+    Page<Dish> pageQuery(DishPageQueryDTO dishPageQueryDTO);
+
+    /**
+     * 根据id查询菜品
+     * @param id
+     * @return
+     */
+    @Select("select * from dish where id = #{id}")
+    Dish getById(Long id);
+
+    /**
+     * 统计指定菜品中起售中的数量
+     * @param ids
+     * @return
+     */
+    long countOnSaleByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询指定菜品所属的分类id
+     * @param ids
+     * @return
+     */
+    List<Long> getCategoryIdsByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 根据id批量删除菜品
+     * @param ids
+     */
+    void deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 修改菜品
+     * @param dish
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    void update(Dish dish);
+
+    /**
+     * 条件查询菜品
+     * @param dish
+     * @return
+     */
+    List<Dish> list(Dish dish);
+
+    /**
+     * 根据id批量查询菜品
+     * @param ids
+     * @return
+     */
+    List<Dish> getByIds(@Param("ids") Collection<Long> ids);
 }
@@ -7,8 +7,12 @@ import com.sky.entity.Employee;
 import com.sky.enumeration.OperationType;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Mapper
 public interface EmployeeMapper {
 
@@ -20,6 +24,14 @@ public interface EmployeeMapper {
     @Select("select * from employee where username = #{username}")
     Employee getByUsername(String username);
 
+    /**
+     * 根据用户名查询登录需要的字段
+     * @param username
+     * @return
+     */
+    @Select("select id, username, name, password, status from employee where username = #{username}")
+    Employee getLoginByUsername(String username);
+
     /**
      * 插入员工数据
      * @param employee
@@ -29,6 +41,13 @@ public interface EmployeeMapper {
     @AutoFill(value = OperationType.INSERT)
     void insert(Employee employee);
 
+    /**
+     * 批量插入员工数据
+     * @param employees
+     */
+    @AutoFill(value = OperationType.INSERT)
+    void insertBatch(@Param("employees") List<Employee> employees);
+
     /**
      * 分页查询
      * @param employeePageQueryDTO
@@ -36,6 +55,26 @@ public interface EmployeeMapper {
      */
     Page<Employee> pageQuery(EmployeePageQueryDTO employeePageQueryDTO);
 
+    /**
+     * 游标分页查询，从上一页最后一条记录之后开始取
+     * @param name 员工姓名
+     * @param lastCreateTime 上一页最后一条记录的创建时间，为null时从第一条开始
+     * @param lastId 上一页最后一条记录的id
+     * @param limit 查询条数
+     * @return
+     */
+    List<Employee> pageQueryByCursor(@Param("name") String name,
+                                     @Param("lastCreateTime") LocalDateTime lastCreateTime,
+                                     @Param("lastId") Long lastId,
+                                     @Param("limit") int limit);
+
+    /**
+     * 根据条件统计员工数量
+     * @param name 员工姓名
+     * @return
+     */
+    long countByName(@Param("name") String name);
+
     Employee getById(Long id);
 
     @AutoFill(value = OperationType.UPDATE)
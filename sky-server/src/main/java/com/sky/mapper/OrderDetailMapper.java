@@ -0,0 +1,17 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderDetail;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface OrderDetailMapper {
+
+    /**
+     * 批量插入订单明细，一条多行insert语句
+     * @param orderDetails
+     */
+    void insertBatch(@Param("orderDetails") List<OrderDetail> orderDetails);
+}
@@ -0,0 +1,14 @@
+package com.sky.mapper;
+
+import com.sky.entity.Orders;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface OrderMapper {
+
+    /**
+     * 插入订单，回填主键
+     * @param orders
+     */
+    void insert(Orders orders);
+}
@@ -0,0 +1,46 @@
+package com.sky.mapper;
+
+import com.sky.entity.SetmealDish;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface SetmealDishMapper {
+
+    /**
+     * 统计关联了指定菜品的套餐菜品记录数
+     * @param dishIds
+     * @return
+     */
+    long countByDishIds(@Param("dishIds") List<Long> dishIds);
+
+    /**
+     * 批量插入套餐菜品关系，一条多行insert语句
+     * @param setmealDishes
+     */
+    void insertBatch(@Param("setmealDishes") List<SetmealDish> setmealDishes);
+
+    /**
+     * 根据套餐id批量删除套餐菜品关系
+     * @param setmealIds
+     */
+    void deleteBySetmealIds(@Param("setmealIds") List<Long> setmealIds);
+
+    /**
+     * 根据套餐id查询套餐菜品关系
+     * @param setmealId
+     * @return
+     */
+    @Select("select * from setmeal_dish where setmeal_id = #{setmealId}")
+    List<SetmealDish> getBySetmealId(Long setmealId);
+
+    /**
+     * 统计指定套餐包含的停售菜品数量，一次查询检查所有套餐
+     * @param setmealIds
+     * @return
+     */
+    long countDisabledDishBySetmealIds(@Param("setmealIds") List<Long> setmealIds);
+}
@@ -1,8 +1,18 @@
 package com.sky.mapper;
 
+import com.github.pagehelper.Page;
+import com.sky.annotation.AutoFill;
+import com.sky.dto.SetmealPageQueryDTO;
+import com.sky.entity.Setmeal;
+import com.sky.enumeration.OperationType;
+import com.sky.vo.SetmealVO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface SetmealMapper {
 
@@ -13,4 +23,75 @@ public interface SetmealMapper {
      */
     @Select("select count(*) from setmeal where category_id = #{categoryId}")
     Integer countByCategoryId(Long categoryId);
+
+    /**
+     * 条件查询套餐
+     * @param setmeal
+     * @return
+     */
+    List<Setmeal> list(Setmeal setmeal);
+
+    /**
+     * 新增套餐，插入后回填主键
+     * @param setmeal
+     */
+    @AutoFill(value = OperationType.INSERT)
+    void insert(Setmeal setmeal);
+
+    /**
+     * 套餐分页查询，关联查询分类名称
+     * @param setmealPageQueryDTO
+     * @return
+     */
+    Page<SetmealVO> pageQuery(SetmealPageQueryDTO setmealPageQueryDTO);
+
+    /**
+     * 根据id查询套餐
+     * @param id
+     * @return
+     */
+    @Select("select * from setmeal where id = #{id}")
+    Setmeal getById(Long id);
+
+    /**
+     * 修改套餐
+     * @param setmeal
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    void update(Setmeal setmeal);
+
+    /**
+     * 批量修改套餐状态，一条update语句
+     * @param setmeal 携带状态和更新人、更新时间
+     * @param ids
+     */
+    @AutoFill(value = OperationType.UPDATE)
+    void updateStatusByIds(@Param("setmeal") Setmeal setmeal, @Param("ids") List<Long> ids);
+
+    /**
+     * 统计指定套餐中起售中的数量
+     * @param ids
+     * @return
+     */
+    long countOnSaleByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询指定套餐所属的分类id
+     * @param ids
+     * @return
+     */
+    List<Long> getCategoryIdsByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 根据id批量删除套餐
+     * @param ids
+     */
+    void deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 根据id批量查询套餐
+     * @param ids
+     * @return
+     */
+    List<Setmeal> getByIds(@Param("ids") Collection<Long> ids);
 }
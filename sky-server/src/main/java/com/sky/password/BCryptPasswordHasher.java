@@ -0,0 +1,45 @@
+package com.sky.password;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * bcrypt密码哈希，格式为 $2a$成本$盐和哈希
+ */
+public class BCryptPasswordHasher implements PasswordHasher {
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}$");
+
+    private final int cost;
+
+    public BCryptPasswordHasher(int cost) {
+        this.cost = cost;
+    }
+
+    @Override
+    public String hash(String rawPassword) {
+        return BCrypt.hashpw(rawPassword, BCrypt.gensalt(cost));
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String hashedPassword) {
+        return BCrypt.checkpw(rawPassword, hashedPassword);
+    }
+
+    @Override
+    public boolean supports(String hashedPassword) {
+        return hashedPassword != null && BCRYPT_PATTERN.matcher(hashedPassword).matches();
+    }
+
+    @Override
+    public boolean needsRehash(String hashedPassword) {
+        Matcher matcher = BCRYPT_PATTERN.matcher(hashedPassword);
+        return !matcher.matches() || Integer.parseInt(matcher.group(1)) < cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sky.password;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.regex.Pattern;
+
+/**
+ * 旧版无盐MD5密码，只用于校验历史数据，校验通过后应重新哈希
+ */
+public class Md5PasswordHasher implements PasswordHasher {
+
+    private static final Pattern MD5_PATTERN = Pattern.compile("^[0-9a-f]{32}$");
+
+    @Override
+    public String hash(String rawPassword) {
+        return DigestUtils.md5DigestAsHex(rawPassword.getBytes());
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String hashedPassword) {
+        return MessageDigest.isEqual(hash(rawPassword).getBytes(StandardCharsets.US_ASCII),
+                hashedPassword.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public boolean supports(String hashedPassword) {
+        return hashedPassword != null && MD5_PATTERN.matcher(hashedPassword).matches();
+    }
+
+    @Override
+    public boolean needsRehash(String hashedPassword) {
+        return true;
+    }
+}
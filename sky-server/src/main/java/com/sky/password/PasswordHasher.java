@@ -0,0 +1,36 @@
+package com.sky.password;
+
+/**
+ * 密码哈希算法
+ */
+public interface PasswordHasher {
+
+    /**
+     * 计算密码哈希，结果中包含盐和成本参数
+     * @param rawPassword 明文密码
+     * @return
+     */
+    String hash(String rawPassword);
+
+    /**
+     * 校验明文密码与哈希是否匹配
+     * @param rawPassword 明文密码
+     * @param hashedPassword 数据库中保存的哈希
+     * @return
+     */
+    boolean matches(String rawPassword, String hashedPassword);
+
+    /**
+     * 判断哈希是否由本算法生成
+     * @param hashedPassword
+     * @return
+     */
+    boolean supports(String hashedPassword);
+
+    /**
+     * 判断哈希的成本是否低于当前配置，需要重新计算
+     * @param hashedPassword
+     * @return
+     */
+    boolean needsRehash(String hashedPassword);
+}
@@ -0,0 +1,181 @@
+package com.sky.password;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ServiceBusyException;
+import com.sky.properties.PasswordProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码哈希与校验
+ * 新密码使用配置的算法；旧算法生成的哈希仍可校验，并可判断是否需要重新哈希。
+ * 哈希计算都在有界线程池中执行，登录高峰时排队有上限，不会占满请求线程
+ */
+@Component
+@Slf4j
+public class PasswordService {
+
+    //校准成本时使用的样例密码
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    @Autowired
+    private PasswordProperties passwordProperties;
+
+    //当前用于生成新哈希的算法
+    private PasswordHasher currentHasher;
+
+    //所有可校验的算法，按哈希格式选择
+    private List<PasswordHasher> hashers;
+
+    private ThreadPoolExecutor hashExecutor;
+
+    @PostConstruct
+    public void init() {
+        BCryptPasswordHasher bcrypt;
+        Pbkdf2PasswordHasher pbkdf2;
+        if ("pbkdf2".equalsIgnoreCase(passwordProperties.getAlgorithm())) {
+            pbkdf2 = new Pbkdf2PasswordHasher(passwordProperties.getCost() > 0 ? passwordProperties.getCost() : calibratePbkdf2());
+            bcrypt = new BCryptPasswordHasher(10);
+            currentHasher = pbkdf2;
+            log.info("密码哈希算法：pbkdf2，迭代次数：{}", pbkdf2.getIterations());
+        } else {
+            bcrypt = new BCryptPasswordHasher(passwordProperties.getCost() > 0 ? passwordProperties.getCost() : calibrateBCrypt());
+            pbkdf2 = new Pbkdf2PasswordHasher(310000);
+            currentHasher = bcrypt;
+            log.info("密码哈希算法：bcrypt，成本：{}", bcrypt.getCost());
+        }
+        hashers = Arrays.asList(bcrypt, pbkdf2, new Md5PasswordHasher());
+
+        int threads = passwordProperties.getVerifyThreads() > 0
+                ? passwordProperties.getVerifyThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        hashExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordProperties.getVerifyQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        hashExecutor.shutdown();
+    }
+
+    /**
+     * 使用当前算法计算密码哈希
+     *
+     * @param rawPassword 明文密码
+     * @return
+     */
+    public String hash(String rawPassword) {
+        return execute(() -> currentHasher.hash(rawPassword));
+    }
+
+    /**
+     * 校验密码，按哈希格式选择对应算法
+     *
+     * @param rawPassword    明文密码
+     * @param hashedPassword 数据库中保存的哈希
+     * @return
+     */
+    public boolean matches(String rawPassword, String hashedPassword) {
+        PasswordHasher hasher = findHasher(hashedPassword);
+        if (hasher == null) {
+            return false;
+        }
+        return execute(() -> hasher.matches(rawPassword, hashedPassword));
+    }
+
+    /**
+     * 判断哈希是否需要用当前算法和成本重新计算
+     *
+     * @param hashedPassword
+     * @return
+     */
+    public boolean needsRehash(String hashedPassword) {
+        PasswordHasher hasher = findHasher(hashedPassword);
+        return hasher != currentHasher || currentHasher.needsRehash(hashedPassword);
+    }
+
+    private PasswordHasher findHasher(String hashedPassword) {
+        for (PasswordHasher hasher : hashers) {
+            if (hasher.supports(hashedPassword)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在哈希线程池中执行并等待结果；线程池已满或等待超时时抛出ServiceBusyException，由调用方决定如何提示
+     * 超时后的cancel只能取消还在排队的任务，已经开始的哈希计算无法中断，会继续占用线程直到完成
+     */
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = hashExecutor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException(MessageConstant.SERVICE_BUSY);
+        }
+
+        try {
+            return future.get(passwordProperties.getVerifyTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException(MessageConstant.SERVICE_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException(MessageConstant.SERVICE_BUSY);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * bcrypt成本每加1耗时翻倍，从较低成本开始逐步增加，直到单次哈希达到目标耗时
+     */
+    private int calibrateBCrypt() {
+        int cost = 8;
+        long millis = measure(new BCryptPasswordHasher(cost));
+        while (cost < 16 && millis * 2 <= passwordProperties.getTargetMillis()) {
+            cost++;
+            millis *= 2;
+        }
+        return Math.max(10, cost);
+    }
+
+    /**
+     * pbkdf2耗时与迭代次数成正比，按一次试算的耗时折算出目标迭代次数
+     */
+    private int calibratePbkdf2() {
+        int sampleIterations = 10000;
+        long millis = Math.max(1, measure(new Pbkdf2PasswordHasher(sampleIterations)));
+        long iterations = sampleIterations * passwordProperties.getTargetMillis() / millis;
+        return (int) Math.max(100000, Math.min(iterations, 10000000));
+    }
+
+    private static long measure(PasswordHasher hasher) {
+        //先执行一次预热
+        hasher.hash(CALIBRATION_PASSWORD);
+        long start = System.nanoTime();
+        hasher.hash(CALIBRATION_PASSWORD);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,153 @@
+package com.sky.security;
+
+import com.sky.properties.JwtProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 管理端令牌吊销列表
+ * 吊销记录保存在Redis的有序集合中，分数为记录的过期时间；每个节点在内存中维护一份布隆过滤器，
+ * 校验令牌时先查布隆过滤器，只有可能命中时才访问Redis确认，绝大多数请求不产生任何远程调用
+ */
+@Component
+@Slf4j
+public class TokenRevocationService {
+
+    //吊销记录的有序集合，成员为会话id或员工标识，分数为过期时间（毫秒）
+    private static final String REVOKED_KEY = "sky:jwt:revoked";
+    //吊销通知的频道，消息内容为吊销的成员，其他节点收到后立即加入本地布隆过滤器
+    private static final String REVOKE_CHANNEL = "sky:jwt:revoke";
+    //员工被禁用时的吊销成员前缀
+    private static final String EMPLOYEE_PREFIX = "emp:";
+    //员工最近一次被禁用的时间（毫秒），签发时间不晚于该时间的令牌都无效
+    private static final String DISABLED_AT_PREFIX = "sky:jwt:disabled-at:";
+    //布隆过滤器的误判率
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+    @Autowired
+    private JwtProperties jwtProperties;
+
+    private volatile BloomFilter bloomFilter;
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = newBloomFilter();
+        redisMessageListenerContainer.addMessageListener(
+                (message, pattern) -> bloomFilter.put(new String(message.getBody())), new ChannelTopic(REVOKE_CHANNEL));
+        sync();
+    }
+
+    /**
+     * 吊销一次登录会话，该会话签发的访问令牌和刷新令牌都失效
+     *
+     * @param sessionId
+     * @param expireAtMillis 吊销记录的过期时间，不早于该会话令牌的过期时间
+     */
+    public void revokeSession(String sessionId, long expireAtMillis) {
+        revoke(sessionId, expireAtMillis);
+    }
+
+    /**
+     * 吊销员工在此之前签发的全部令牌，用于禁用员工账号
+     * 记录禁用时间而不是直接按员工吊销，重新启用后新签发的令牌可以正常使用，禁用前签发的令牌仍然无效；
+     * 记录保留到禁用前签发的令牌全部过期为止
+     *
+     * @param empId
+     */
+    public void revokeEmployee(Long empId) {
+        long now = System.currentTimeMillis();
+        long ttl = jwtProperties.getAdminRefreshTtl();
+        stringRedisTemplate.opsForValue().set(DISABLED_AT_PREFIX + empId, String.valueOf(now), ttl, TimeUnit.MILLISECONDS);
+        revoke(EMPLOYEE_PREFIX + empId, now + ttl);
+    }
+
+    /**
+     * 判断令牌是否已被吊销
+     *
+     * @param sessionId 会话id，旧令牌没有会话id时为null
+     * @param empId
+     * @param issuedAtMillis 令牌的签发时间，旧令牌没有签发时间时为null
+     * @return
+     */
+    public boolean isRevoked(String sessionId, Long empId, Long issuedAtMillis) {
+        return (sessionId != null && isRevoked(sessionId)) || isEmployeeRevoked(empId, issuedAtMillis);
+    }
+
+    private boolean isEmployeeRevoked(Long empId, Long issuedAtMillis) {
+        if (!bloomFilter.mightContain(EMPLOYEE_PREFIX + empId)) {
+            return false;
+        }
+        try {
+            String disabledAt = stringRedisTemplate.opsForValue().get(DISABLED_AT_PREFIX + empId);
+            //令牌的签发时间只精确到秒，与禁用在同一秒内签发的令牌也按禁用前处理
+            return disabledAt != null && (issuedAtMillis == null || issuedAtMillis <= Long.parseLong(disabledAt));
+        } catch (Exception e) {
+            //无法确认时按已吊销处理
+            log.warn("查询员工禁用记录失败：{}", e.getMessage());
+            return true;
+        }
+    }
+
+    private boolean isRevoked(String member) {
+        if (!bloomFilter.mightContain(member)) {
+            return false;
+        }
+        try {
+            Double expireAt = stringRedisTemplate.opsForZSet().score(REVOKED_KEY, member);
+            return expireAt != null && expireAt > System.currentTimeMillis();
+        } catch (Exception e) {
+            //无法确认时按已吊销处理
+            log.warn("查询令牌吊销记录失败：{}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void revoke(String member, long expireAtMillis) {
+        bloomFilter.put(member);
+        stringRedisTemplate.opsForZSet().add(REVOKED_KEY, member, expireAtMillis);
+        stringRedisTemplate.convertAndSend(REVOKE_CHANNEL, member);
+    }
+
+    /**
+     * 定期清理过期的吊销记录，并用Redis中的全量数据重建布隆过滤器
+     * 重建后已撤销和已过期的记录不再命中过滤器，漏收的吊销通知也会在这里补齐
+     */
+    @Scheduled(fixedDelayString = "${sky.jwt.revocation-sync-millis:10000}")
+    public void sync() {
+        try {
+            stringRedisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, 0, System.currentTimeMillis());
+            Set<String> members = stringRedisTemplate.opsForZSet().range(REVOKED_KEY, 0, -1);
+
+            BloomFilter rebuilt = newBloomFilter();
+            if (members != null) {
+                members.forEach(rebuilt::put);
+            }
+            bloomFilter = rebuilt;
+            //重建期间新增的吊销记录可能只写入了旧过滤器，切换后再从Redis补一次
+            Set<String> latest = stringRedisTemplate.opsForZSet().range(REVOKED_KEY, 0, -1);
+            if (latest != null) {
+                latest.forEach(rebuilt::put);
+            }
+        } catch (Exception e) {
+            //同步失败时保留当前过滤器，其中的记录只增不减，不会漏判
+            log.warn("同步令牌吊销列表失败：{}", e.getMessage());
+        }
+    }
+
+    private BloomFilter newBloomFilter() {
+        return new BloomFilter(jwtProperties.getRevocationExpectedInsertions(), FALSE_POSITIVE_RATE);
+    }
+}
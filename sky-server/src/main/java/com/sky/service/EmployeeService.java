@@ -6,6 +6,8 @@ import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
 import com.sky.result.PageResult;
 
+import java.util.List;
+
 public interface EmployeeService {
 
     /**
@@ -21,6 +23,12 @@ public interface EmployeeService {
      */
     void addEmployee(EmployeeDTO employeeDTO);
 
+    /**
+     * 批量新增员工
+     * @param employeeDTOs
+     */
+    void addEmployeeBatch(List<EmployeeDTO> employeeDTOs);
+
     /**
      * 分页查询
      * @param employeePageQueryDTO
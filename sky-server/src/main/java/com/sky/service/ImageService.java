@@ -0,0 +1,15 @@
+package com.sky.service;
+
+import java.io.InputStream;
+import java.util.Map;
+
+public interface ImageService {
+
+    /**
+     * 为已上传的原图生成缩略图和压缩图，并上传到原图旁边
+     * @param inputStream 原图数据
+     * @param objectName 原图的对象名称
+     * @return 规格名称 -> 访问路径，无法解码为图片或图片过大时返回空集合
+     */
+    Map<String, String> createVariants(InputStream inputStream, String objectName);
+}
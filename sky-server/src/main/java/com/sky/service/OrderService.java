@@ -0,0 +1,15 @@
+package com.sky.service;
+
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.vo.OrderSubmitVO;
+
+public interface OrderService {
+
+    /**
+     * 用户下单
+     * @param ordersSubmitDTO
+     * @param idempotencyKey 客户端生成的幂等键，可以为空
+     * @return
+     */
+    OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO, String idempotencyKey);
+}
@@ -0,0 +1,52 @@
+package com.sky.service;
+
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+public interface ShoppingCartService {
+
+    /**
+     * 添加购物车，已有的商品数量加一
+     * @param shoppingCartDTO
+     */
+    void add(ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 商品数量减一，减到0时从购物车移除
+     * @param shoppingCartDTO
+     */
+    void sub(ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 查看当前用户的购物车
+     * @return
+     */
+    List<ShoppingCart> list();
+
+    /**
+     * 查看指定用户的购物车，商品名称、图片和单价为当前数据
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> listByUserId(Long userId);
+
+    /**
+     * 下单时读取指定用户的购物车，存在已删除或停售的商品时抛出异常
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> listForCheckout(Long userId);
+
+    /**
+     * 清空当前用户的购物车
+     */
+    void clean();
+
+    /**
+     * 清空指定用户的购物车
+     * @param userId
+     */
+    void cleanByUserId(Long userId);
+}
@@ -1,23 +1,36 @@
 package com.sky.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.CategoryCache;
+import com.sky.cache.MenuSnapshotCache;
 import com.sky.constant.MessageConstant;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
+import com.sky.dto.CategoryRelationDTO;
 import com.sky.entity.Category;
+import com.sky.exception.BaseException;
 import com.sky.exception.DeletionNotAllowedException;
 import com.sky.mapper.CategoryMapper;
-import com.sky.mapper.DishMapper;
-import com.sky.mapper.SetmealMapper;
+import com.sky.properties.CacheProperties;
 import com.sky.result.PageResult;
 import com.sky.service.CategoryService;
+import com.sky.utils.PageCursorUtil;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 
 @Service
@@ -26,9 +39,22 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private CategoryMapper categoryMapper;
     @Autowired
-    private DishMapper dishMapper;
+    private CategoryCache categoryCache;
     @Autowired
-    private SetmealMapper setmealMapper;
+    private MenuSnapshotCache menuSnapshotCache;
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    //游标分页时按查询条件缓存的总记录数
+    private Cache<String, Long> pageCountCache;
+
+    @PostConstruct
+    public void init() {
+        pageCountCache = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(cacheProperties.getPageCountTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
 
     /**
      * 分类分页查询
@@ -37,7 +63,12 @@ public class CategoryServiceImpl implements CategoryService {
      * @return
      */
     @Override
+    @ReadOnly
     public PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO) {
+        if (categoryPageQueryDTO.getCursor() != null) {
+            return pageQueryByCursor(categoryPageQueryDTO);
+        }
+
         PageHelper.startPage(categoryPageQueryDTO.getPage(), categoryPageQueryDTO.getPageSize());
 
         Page<Category> page = categoryMapper.pageQuery(categoryPageQueryDTO);
@@ -45,6 +76,46 @@ public class CategoryServiceImpl implements CategoryService {
         return new PageResult(page.getTotal(), page.getResult());
     }
 
+    /**
+     * 游标分页查询
+     * 按上一页最后一条记录的(sort, create_time, id)定位，不使用offset；总数使用缓存的近似值
+     *
+     * @param categoryPageQueryDTO
+     * @return
+     */
+    private PageResult pageQueryByCursor(CategoryPageQueryDTO categoryPageQueryDTO) {
+        Integer lastSort = null;
+        LocalDateTime lastCreateTime = null;
+        Long lastId = null;
+        if (!categoryPageQueryDTO.getCursor().isEmpty()) {
+            String[] keys = PageCursorUtil.decode(categoryPageQueryDTO.getCursor(), 3);
+            try {
+                lastSort = Integer.valueOf(keys[0]);
+                lastCreateTime = LocalDateTime.parse(keys[1]);
+                lastId = Long.valueOf(keys[2]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BaseException(MessageConstant.PAGE_CURSOR_INVALID);
+            }
+        }
+
+        String name = categoryPageQueryDTO.getName();
+        Integer type = categoryPageQueryDTO.getType();
+
+        // 多查一条，用于判断是否还有下一页
+        int pageSize = Math.max(1, categoryPageQueryDTO.getPageSize());
+        List<Category> records = categoryMapper.pageQueryByCursor(name, type, lastSort, lastCreateTime, lastId, pageSize + 1);
+
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+            Category last = records.get(pageSize - 1);
+            nextCursor = PageCursorUtil.encode(last.getSort(), last.getCreateTime(), last.getId());
+        }
+
+        long total = pageCountCache.get(name + "|" + type, key -> categoryMapper.countByCondition(name, type));
+        return new PageResult(total, records, nextCursor);
+    }
+
     /**
      * 新增分类
      *
@@ -58,6 +129,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setStatus(0);
 
         categoryMapper.insert(category);
+        categoryCache.invalidate();
     }
 
     /**
@@ -74,6 +146,8 @@ public class CategoryServiceImpl implements CategoryService {
                 .build();
 
         categoryMapper.update(category);
+        categoryCache.invalidate();
+        menuSnapshotCache.invalidate(category.getId());
     }
 
     /**
@@ -86,38 +160,48 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = new Category();
         BeanUtils.copyProperties(categoryDTO, category);
         categoryMapper.update(category);
+        categoryCache.invalidate();
+        menuSnapshotCache.invalidate(category.getId());
     }
 
     /**
      * 根据id删除分类
+     * 先锁定分类记录，再用一次查询检查是否关联了菜品或套餐，检查和删除在同一事务中完成；
+     * 新增或修改菜品、套餐时对分类加共享锁，与这里的排他锁互斥，检查之后不会再有菜品或套餐写入该分类
      *
      * @param id
      * @return
      */
     @Override
+    @Transactional
     public void delById(Long id) {
-        Integer count = dishMapper.countByCategoryId(id);
-        if (count > 0) {
-            throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_DISH);
+        if (categoryMapper.lockById(id) == null) {
+            return;
         }
 
-        count = setmealMapper.countByCategoryId(id);
-        if (count > 0) {
+        CategoryRelationDTO relation = categoryMapper.getRelation(id);
+        if (Boolean.TRUE.equals(relation.getDishRelated())) {
+            throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_DISH);
+        }
+        if (Boolean.TRUE.equals(relation.getSetmealRelated())) {
             throw new DeletionNotAllowedException(MessageConstant.CATEGORY_BE_RELATED_BY_SETMEAL);
         }
 
         categoryMapper.deleteById(id);
+        categoryCache.invalidate();
+        menuSnapshotCache.invalidate(id);
     }
 
     /**
-     * 根据类型查询
+     * 根据类型查询，结果经过两级缓存
      *
      * @param type
      * @return
      */
     @Override
+    @ReadOnly
     public List<Category> getByType(String type) {
 
-        return categoryMapper.getByType(type);
+        return categoryCache.get(type, () -> categoryMapper.getByType(type));
     }
 }
@@ -0,0 +1,248 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.MenuSnapshotCache;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.dto.DishDTO;
+import com.sky.dto.DishPageQueryDTO;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.exception.CategoryNotFoundException;
+import com.sky.exception.DeletionNotAllowedException;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.result.PageResult;
+import com.sky.service.DishService;
+import com.sky.vo.DishVO;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+public class DishServiceImpl implements DishService {
+
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    /**
+     * 新增菜品和对应的口味
+     * 口味通过一条多行insert写入
+     *
+     * @param dishDTO
+     */
+    @Override
+    @Transactional
+    public void saveWithFlavor(DishDTO dishDTO) {
+        lockCategory(dishDTO.getCategoryId());
+
+        Dish dish = new Dish();
+        BeanUtils.copyProperties(dishDTO, dish);
+
+        //新增的菜品默认停售
+        if (dish.getStatus() == null) {
+            dish.setStatus(StatusConstant.DISABLE);
+        }
+        dishMapper.insert(dish);
+
+        insertFlavors(dish.getId(), dishDTO.getFlavors());
+        menuSnapshotCache.invalidate(dish.getCategoryId());
+    }
+
+    /**
+     * 菜品分页查询
+     * 依次查询当前页的菜品、这些菜品的分类名称、这些菜品的口味，在内存中按id组装，
+     * 查询次数与每页条数无关
+     *
+     * @param dishPageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public PageResult pageQuery(DishPageQueryDTO dishPageQueryDTO) {
+        PageHelper.startPage(dishPageQueryDTO.getPage(), dishPageQueryDTO.getPageSize());
+        Page<Dish> page = dishMapper.pageQuery(dishPageQueryDTO);
+
+        List<Dish> dishes = page.getResult();
+        if (dishes.isEmpty()) {
+            return new PageResult(page.getTotal(), Collections.emptyList());
+        }
+
+        Set<Long> categoryIds = new HashSet<>();
+        List<Long> dishIds = new ArrayList<>(dishes.size());
+        for (Dish dish : dishes) {
+            categoryIds.add(dish.getCategoryId());
+            dishIds.add(dish.getId());
+        }
+
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (Category category : categoryMapper.getNamesByIds(categoryIds)) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+        Map<Long, List<DishFlavor>> flavorsByDishId = dishFlavorMapper.getByDishIds(dishIds).stream()
+                .collect(Collectors.groupingBy(DishFlavor::getDishId));
+
+        List<DishVO> records = new ArrayList<>(dishes.size());
+        for (Dish dish : dishes) {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setCategoryName(categoryNames.get(dish.getCategoryId()));
+            dishVO.setFlavors(flavorsByDishId.getOrDefault(dish.getId(), new ArrayList<>()));
+            records.add(dishVO);
+        }
+        return new PageResult(page.getTotal(), records);
+    }
+
+    /**
+     * 菜品批量删除
+     * 起售中的菜品和被套餐关联的菜品不能删除，检查各用一次查询
+     *
+     * @param ids
+     */
+    @Override
+    @Transactional
+    public void deleteBatch(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        if (dishMapper.countOnSaleByIds(ids) > 0) {
+            throw new DeletionNotAllowedException(MessageConstant.DISH_ON_SALE);
+        }
+        if (setmealDishMapper.countByDishIds(ids) > 0) {
+            throw new DeletionNotAllowedException(MessageConstant.DISH_BE_RELATED_BY_SETMEAL);
+        }
+
+        List<Long> categoryIds = dishMapper.getCategoryIdsByIds(ids);
+        dishMapper.deleteByIds(ids);
+        dishFlavorMapper.deleteByDishIds(ids);
+        menuSnapshotCache.invalidate(categoryIds);
+    }
+
+    /**
+     * 根据id查询菜品和对应的口味
+     *
+     * @param id
+     * @return
+     */
+    @Override
+    public DishVO getByIdWithFlavor(Long id) {
+        Dish dish = dishMapper.getById(id);
+        if (dish == null) {
+            return null;
+        }
+
+        DishVO dishVO = new DishVO();
+        BeanUtils.copyProperties(dish, dishVO);
+        dishVO.setFlavors(dishFlavorMapper.getByDishId(id));
+        return dishVO;
+    }
+
+    /**
+     * 修改菜品和对应的口味，口味先全部删除再重新插入
+     *
+     * @param dishDTO
+     */
+    @Override
+    @Transactional
+    public void updateWithFlavor(DishDTO dishDTO) {
+        lockCategory(dishDTO.getCategoryId());
+        Dish original = dishMapper.getById(dishDTO.getId());
+
+        Dish dish = new Dish();
+        BeanUtils.copyProperties(dishDTO, dish);
+        dishMapper.update(dish);
+
+        dishFlavorMapper.deleteByDishIds(Collections.singletonList(dishDTO.getId()));
+        insertFlavors(dishDTO.getId(), dishDTO.getFlavors());
+
+        //修改了分类时，原分类和新分类的菜单都需要失效
+        List<Long> categoryIds = new ArrayList<>();
+        categoryIds.add(dishDTO.getCategoryId());
+        if (original != null) {
+            categoryIds.add(original.getCategoryId());
+        }
+        menuSnapshotCache.invalidate(categoryIds);
+    }
+
+    /**
+     * 起售或停售菜品
+     *
+     * @param status
+     * @param id
+     */
+    @Override
+    public void startOrStop(Integer status, Long id) {
+        Dish dish = Dish.builder()
+                .id(id)
+                .status(status)
+                .build();
+        dishMapper.update(dish);
+
+        Dish updated = dishMapper.getById(id);
+        if (updated != null) {
+            menuSnapshotCache.invalidate(updated.getCategoryId());
+        }
+    }
+
+    /**
+     * 根据分类id查询起售中的菜品
+     *
+     * @param categoryId
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public List<Dish> list(Long categoryId) {
+        Dish dish = Dish.builder()
+                .categoryId(categoryId)
+                .status(StatusConstant.ENABLE)
+                .build();
+        return dishMapper.list(dish);
+    }
+
+    /**
+     * 为菜品批量插入口味
+     *
+     * @param dishId
+     * @param flavors
+     */
+    private void insertFlavors(Long dishId, List<DishFlavor> flavors) {
+        if (flavors == null || flavors.isEmpty()) {
+            return;
+        }
+        flavors.forEach(flavor -> flavor.setDishId(dishId));
+        dishFlavorMapper.insertBatch(flavors);
+    }
+
+    /**
+     * 对菜品所属分类加共享锁，防止分类在本事务提交前被删除
+     */
+    private void lockCategory(Long categoryId) {
+        if (categoryId != null && categoryMapper.lockByIdInShareMode(categoryId) == null) {
+            throw new CategoryNotFoundException(MessageConstant.CATEGORY_NOT_FOUND);
+        }
+    }
+}
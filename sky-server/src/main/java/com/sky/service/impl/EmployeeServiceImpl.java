@@ -1,8 +1,12 @@
 package com.sky.service.impl;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.EmployeeCache;
 import com.sky.constant.MessageConstant;
 import com.sky.constant.PasswordConstant;
 import com.sky.constant.StatusConstant;
@@ -13,22 +17,58 @@ import com.sky.dto.EmployeePageQueryDTO;
 import com.sky.entity.Employee;
 import com.sky.exception.AccountLockedException;
 import com.sky.exception.AccountNotFoundException;
+import com.sky.exception.BaseException;
+import com.sky.exception.LoginFailedException;
 import com.sky.exception.PasswordErrorException;
+import com.sky.exception.ServiceBusyException;
 import com.sky.mapper.EmployeeMapper;
+import com.sky.password.PasswordService;
+import com.sky.properties.CacheProperties;
+import com.sky.properties.EmployeeProperties;
 import com.sky.result.PageResult;
+import com.sky.security.TokenRevocationService;
 import com.sky.service.EmployeeService;
+import com.sky.utils.PageCursorUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@Slf4j
 public class EmployeeServiceImpl implements EmployeeService {
 
     @Autowired
     private EmployeeMapper employeeMapper;
+    @Autowired
+    private EmployeeProperties employeeProperties;
+    @Autowired
+    private CacheProperties cacheProperties;
+    @Autowired
+    private EmployeeCache employeeCache;
+    @Autowired
+    private PasswordService passwordService;
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    //游标分页时按查询条件缓存的总记录数
+    private Cache<String, Long> pageCountCache;
+
+    @PostConstruct
+    public void init() {
+        pageCountCache = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(cacheProperties.getPageCountTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
 
     /**
      * 员工登录
@@ -40,8 +80,8 @@ public class EmployeeServiceImpl implements EmployeeService {
         String username = employeeLoginDTO.getUsername();
         String password = employeeLoginDTO.getPassword();
 
-        //1、根据用户名查询数据库中的数据
-        Employee employee = employeeMapper.getByUsername(username);
+        //1、根据用户名查询登录所需的数据，优先使用缓存
+        Employee employee = employeeCache.getByUsername(username, employeeMapper::getLoginByUsername);
 
         //2、处理各种异常情况（用户名不存在、密码不对、账号被锁定）
         if (employee == null) {
@@ -49,11 +89,14 @@ public class EmployeeServiceImpl implements EmployeeService {
             throw new AccountNotFoundException(MessageConstant.ACCOUNT_NOT_FOUND);
         }
 
-        //密码比对
-        // 对前端传来的密码进行md5加密
-        password = DigestUtils.md5DigestAsHex(password.getBytes());
-
-        if (!password.equals(employee.getPassword())) {
+        //密码比对，按数据库中哈希的格式选择算法；哈希线程池繁忙时提示登录人数过多
+        boolean matches;
+        try {
+            matches = passwordService.matches(password, employee.getPassword());
+        } catch (ServiceBusyException e) {
+            throw new LoginFailedException(MessageConstant.LOGIN_BUSY);
+        }
+        if (!matches) {
             //密码错误
             throw new PasswordErrorException(MessageConstant.PASSWORD_ERROR);
         }
@@ -63,6 +106,18 @@ public class EmployeeServiceImpl implements EmployeeService {
             throw new AccountLockedException(MessageConstant.ACCOUNT_LOCKED);
         }
 
+        //旧的MD5密码或成本过低的哈希，在登录成功时用当前算法重新哈希；繁忙时跳过，下次登录再处理
+        if (passwordService.needsRehash(employee.getPassword())) {
+            try {
+                employeeMapper.update(Employee.builder()
+                        .id(employee.getId())
+                        .password(passwordService.hash(password))
+                        .build());
+            } catch (ServiceBusyException e) {
+                log.warn("重新哈希密码时系统繁忙，跳过：{}", employee.getId());
+            }
+        }
+
         //3、返回实体对象
         return employee;
     }
@@ -82,7 +137,7 @@ public class EmployeeServiceImpl implements EmployeeService {
         employee.setStatus(StatusConstant.ENABLE);//启用
 
         //设置默认密码
-        employee.setPassword(DigestUtils.md5DigestAsHex(PasswordConstant.DEFAULT_PASSWORD.getBytes()));
+        employee.setPassword(passwordService.hash(PasswordConstant.DEFAULT_PASSWORD));
 
         //设置当前创建时间
        // employee.setCreateTime(LocalDateTime.now());
@@ -97,13 +152,49 @@ public class EmployeeServiceImpl implements EmployeeService {
         employeeMapper.insert(employee);
     }
 
+    /**
+     * 批量新增员工
+     * 按配置的批次大小拆分为多条多行insert，在同一个事务中执行
+     * @param employeeDTOs
+     */
+    @Override
+    @Transactional
+    public void addEmployeeBatch(List<EmployeeDTO> employeeDTOs) {
+        if (employeeDTOs == null || employeeDTOs.isEmpty()) {
+            return;
+        }
+
+        //所有新员工使用相同的默认密码，只需计算一次
+        String defaultPassword = passwordService.hash(PasswordConstant.DEFAULT_PASSWORD);
+
+        List<Employee> employees = new ArrayList<>(employeeDTOs.size());
+        for (EmployeeDTO employeeDTO : employeeDTOs) {
+            Employee employee = new Employee();
+            BeanUtils.copyProperties(employeeDTO, employee);
+            employee.setStatus(StatusConstant.ENABLE);
+            employee.setPassword(defaultPassword);
+            employees.add(employee);
+        }
+
+        //分批插入，避免单条SQL过长
+        int batchSize = Math.max(1, employeeProperties.getBatchSize());
+        for (int from = 0; from < employees.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, employees.size());
+            employeeMapper.insertBatch(employees.subList(from, to));
+        }
+    }
+
     /**
      * 分页查询
      * @param employeePageQueryDTO
      * @return
      */
     @Override
+    @ReadOnly
     public PageResult pageQuery(EmployeePageQueryDTO employeePageQueryDTO) {
+        if (employeePageQueryDTO.getCursor() != null) {
+            return pageQueryByCursor(employeePageQueryDTO);
+        }
        // 开始分页查询
         PageHelper.startPage(employeePageQueryDTO.getPage(),employeePageQueryDTO.getPageSize());
         // 执行分页查询
@@ -112,6 +203,41 @@ public class EmployeeServiceImpl implements EmployeeService {
         return new PageResult(page.getTotal(),page.getResult());
     }
 
+    /**
+     * 游标分页查询
+     * 按上一页最后一条记录的(create_time, id)定位，不使用offset，深度翻页不会变慢；总数使用缓存的近似值
+     * @param employeePageQueryDTO
+     * @return
+     */
+    private PageResult pageQueryByCursor(EmployeePageQueryDTO employeePageQueryDTO) {
+        LocalDateTime lastCreateTime = null;
+        Long lastId = null;
+        if (!employeePageQueryDTO.getCursor().isEmpty()) {
+            String[] keys = PageCursorUtil.decode(employeePageQueryDTO.getCursor(), 2);
+            try {
+                lastCreateTime = LocalDateTime.parse(keys[0]);
+                lastId = Long.valueOf(keys[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new BaseException(MessageConstant.PAGE_CURSOR_INVALID);
+            }
+        }
+
+        // 多查一条，用于判断是否还有下一页
+        int pageSize = Math.max(1, employeePageQueryDTO.getPageSize());
+        List<Employee> records = employeeMapper.pageQueryByCursor(employeePageQueryDTO.getName(), lastCreateTime, lastId, pageSize + 1);
+
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+            Employee last = records.get(pageSize - 1);
+            nextCursor = PageCursorUtil.encode(last.getCreateTime(), last.getId());
+        }
+
+        String name = employeePageQueryDTO.getName();
+        long total = pageCountCache.get(name == null ? "" : name, key -> employeeMapper.countByName(name));
+        return new PageResult(total, records, nextCursor);
+    }
+
     /**
      * 启用禁用员工账号
      * @param status
@@ -128,6 +254,11 @@ public class EmployeeServiceImpl implements EmployeeService {
 
 
         employeeMapper.update(employee);
+
+        //禁用后该员工已签发的令牌全部失效，重新启用后也只有新签发的令牌有效
+        if (StatusConstant.DISABLE.equals(status)) {
+            tokenRevocationService.revokeEmployee(id);
+        }
     }
 
     /**
@@ -136,7 +267,7 @@ public class EmployeeServiceImpl implements EmployeeService {
      */
     @Override
     public Employee getById(Long id) {
-        Employee employee = employeeMapper.getById(id);
+        Employee employee = employeeCache.getById(id, employeeMapper::getById);
         //在实体类添加了@JsonIgnore注解，在返回前端时，不返回密码 保证安全性
         // employee.setPassword("****");//密码也会返回到前端，因此需要将密码设置为****
         return employee;
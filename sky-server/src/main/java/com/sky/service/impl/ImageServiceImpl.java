@@ -0,0 +1,199 @@
+package com.sky.service.impl;
+
+import com.sky.properties.ImageProperties;
+import com.sky.service.ImageService;
+import com.sky.utils.AliOssUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class ImageServiceImpl implements ImageService {
+
+    //压缩图的规格名称
+    private static final String COMPRESSED = "compressed";
+
+    @Autowired
+    private ImageProperties imageProperties;
+    @Autowired
+    private AliOssUtil aliOssUtil;
+
+    //图片缩放、编码和上传的线程池，线程数等于CPU核数，队列有界
+    private ThreadPoolExecutor imageExecutor;
+
+    @PostConstruct
+    public void init() {
+        //编解码都在内存中完成，不使用磁盘缓存
+        ImageIO.setUseCache(false);
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        imageExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(imageProperties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        imageExecutor.shutdown();
+    }
+
+    /**
+     * 生成缩略图和压缩图
+     * 原图只解码一次，各规格在线程池中并行缩放、编码并上传；
+     * 原图已经上传成功，解码失败（损坏、CMYK的JPEG等）时只返回原图，不影响上传结果
+     *
+     * @param inputStream 原图数据
+     * @param objectName  原图的对象名称
+     * @return
+     */
+    @Override
+    public Map<String, String> createVariants(InputStream inputStream, String objectName) {
+        Map<String, String> variants = new LinkedHashMap<>();
+        BufferedImage original;
+        try {
+            original = decode(inputStream, objectName);
+        } catch (Exception e) {
+            log.warn("图片解码失败，跳过生成缩略图：{}，{}", objectName, e.getMessage());
+            return variants;
+        }
+        if (original == null) {
+            //不是可识别的图片格式或尺寸过大，不生成其他规格
+            return variants;
+        }
+
+        String baseName = objectName.contains(".") ? objectName.substring(0, objectName.lastIndexOf(".")) : objectName;
+
+        Map<String, Future<String>> futures = new LinkedHashMap<>();
+        try {
+            for (Integer width : imageProperties.getThumbnailWidths()) {
+                String name = "w" + width;
+                String variantObjectName = baseName + "_" + name + ".jpg";
+                futures.put(name, imageExecutor.submit(() ->
+                        aliOssUtil.upload(encodeJpeg(resize(original, width), imageProperties.getThumbnailQuality()), variantObjectName)));
+            }
+            String compressedObjectName = baseName + "_" + COMPRESSED + ".jpg";
+            futures.put(COMPRESSED, imageExecutor.submit(() ->
+                    aliOssUtil.upload(encodeJpeg(resize(original, original.getWidth()), imageProperties.getCompressQuality()), compressedObjectName)));
+        } catch (RejectedExecutionException e) {
+            //线程池已满，放弃本次生成，只返回原图
+            log.warn("图片处理线程池已满，跳过生成缩略图：{}", objectName);
+            futures.values().forEach(future -> future.cancel(true));
+            return variants;
+        }
+
+        long deadline = System.currentTimeMillis() + imageProperties.getTimeoutMillis();
+        for (Map.Entry<String, Future<String>> entry : futures.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                variants.put(entry.getKey(), entry.getValue().get(remaining, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                entry.getValue().cancel(true);
+            } catch (Exception e) {
+                log.warn("生成图片规格{}失败：{}", entry.getKey(), e.getMessage());
+                entry.getValue().cancel(true);
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * 先只读取图片头中的宽高，像素数不超过上限时才完整解码
+     *
+     * @return 不是可识别的图片格式或尺寸过大时返回null
+     */
+    private BufferedImage decode(InputStream inputStream, String objectName) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            if (imageInputStream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > imageProperties.getMaxPixels()) {
+                    log.warn("图片尺寸过大，跳过生成缩略图：{}，{}像素", objectName, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按宽度等比缩放，不放大；透明背景填充为白色以便输出JPEG
+     */
+    private static BufferedImage resize(BufferedImage original, int width) {
+        int targetWidth = Math.min(width, original.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) original.getHeight() * targetWidth / original.getWidth()));
+
+        BufferedImage resized = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(original, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * 以指定质量编码为JPEG
+     */
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,256 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.OrdersSubmitDTO;
+import com.sky.entity.AddressBook;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.AddressBookBusinessException;
+import com.sky.exception.OrderBusinessException;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.AddressBookMapper;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.properties.OrderProperties;
+import com.sky.service.OrderService;
+import com.sky.service.ShoppingCartService;
+import com.sky.vo.OrderSubmitVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下单在一个事务中完成：读取一次购物车，按当前价格核对金额，插入订单，一条多行insert写入全部订单明细；
+ * 事务提交后清空购物车（一次DEL）。同一用户同时只能有一个下单请求在处理，携带幂等键重复提交时返回第一次的结果
+ */
+@Service
+@Slf4j
+public class OrderServiceImpl implements OrderService {
+
+    //下单处理中的锁，每个用户一个
+    private static final String SUBMIT_LOCK_PREFIX = "sky:order:submit:";
+    //已完成下单的幂等键，值为下单结果
+    private static final String IDEMPOTENCY_PREFIX = "sky:order:idempotency:";
+    //订单号序号，每秒一个计数器，所有节点共享
+    private static final String NUMBER_SEQUENCE_PREFIX = "sky:order:number:";
+
+    //只有锁的值仍是本次请求写入的值时才删除，锁已过期并被其他请求重新获取时不删除
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    //递增当前秒的序号，第一次创建时设置过期时间
+    private static final DefaultRedisScript<Long> SEQUENCE_SCRIPT = new DefaultRedisScript<>(
+            "local sequence = redis.call('INCR', KEYS[1]) " +
+            "if sequence == 1 then redis.call('EXPIRE', KEYS[1], 60) end " +
+            "return sequence", Long.class);
+
+    @Autowired
+    private OrderMapper orderMapper;
+    @Autowired
+    private OrderDetailMapper orderDetailMapper;
+    @Autowired
+    private AddressBookMapper addressBookMapper;
+    @Autowired
+    private ShoppingCartService shoppingCartService;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private OrderProperties orderProperties;
+
+    private final JacksonObjectMapper objectMapper = new JacksonObjectMapper();
+
+    /**
+     * 用户下单
+     *
+     * @param ordersSubmitDTO
+     * @param idempotencyKey
+     * @return
+     */
+    @Override
+    @Transactional
+    public OrderSubmitVO submitOrder(OrdersSubmitDTO ordersSubmitDTO, String idempotencyKey) {
+        Long userId = BaseContext.getCurrentId();
+        if (idempotencyKey != null && idempotencyKey.trim().isEmpty()) {
+            idempotencyKey = null;
+        }
+        String suffix = userId + ":" + (idempotencyKey == null ? "" : idempotencyKey);
+
+        //使用同一幂等键重复提交，直接返回第一次的下单结果
+        if (idempotencyKey != null) {
+            OrderSubmitVO previous = getPreviousResult(IDEMPOTENCY_PREFIX + suffix);
+            if (previous != null) {
+                log.info("重复提交订单，返回已有订单：{}", previous.getOrderNumber());
+                return previous;
+            }
+        }
+
+        //加锁，防止连续点击时重复下单；锁在事务结束（提交或回滚）后释放
+        String lockKey = SUBMIT_LOCK_PREFIX + userId;
+        String lockValue = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue()
+                .setIfAbsent(lockKey, lockValue, orderProperties.getSubmitLockSeconds(), TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            throw new OrderBusinessException(MessageConstant.ORDER_SUBMITTING);
+        }
+        //加锁前的检查和加锁之间，同一幂等键的上一次请求可能刚好提交并释放了锁，加锁后再检查一次
+        if (idempotencyKey != null) {
+            OrderSubmitVO previous = getPreviousResult(IDEMPOTENCY_PREFIX + suffix);
+            if (previous != null) {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), lockValue);
+                log.info("重复提交订单，返回已有订单：{}", previous.getOrderNumber());
+                return previous;
+            }
+        }
+        SubmitSynchronization synchronization = new SubmitSynchronization(userId, lockKey, lockValue,
+                idempotencyKey == null ? null : IDEMPOTENCY_PREFIX + suffix);
+        TransactionSynchronizationManager.registerSynchronization(synchronization);
+
+        //1、校验地址和购物车
+        AddressBook addressBook = addressBookMapper.getById(ordersSubmitDTO.getAddressBookId());
+        if (addressBook == null || !userId.equals(addressBook.getUserId())) {
+            throw new AddressBookBusinessException(MessageConstant.ADDRESS_BOOK_IS_NULL);
+        }
+        List<ShoppingCart> shoppingCarts = shoppingCartService.listForCheckout(userId);
+        if (shoppingCarts.isEmpty()) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
+        }
+
+        //2、按购物车中的当前价格计算订单金额，与客户端计算的金额不一致时拒绝下单
+        //打包费也由服务端按商品份数计算，不使用客户端传入的值
+        int packAmount = 0;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (ShoppingCart shoppingCart : shoppingCarts) {
+            amount = amount.add(shoppingCart.getAmount().multiply(BigDecimal.valueOf(shoppingCart.getNumber())));
+            packAmount += shoppingCart.getNumber() * orderProperties.getPackFeePerItem();
+        }
+        amount = amount.add(BigDecimal.valueOf(packAmount));
+        if (ordersSubmitDTO.getAmount() != null && ordersSubmitDTO.getAmount().compareTo(amount) != 0) {
+            throw new OrderBusinessException(MessageConstant.ORDER_AMOUNT_MISMATCH);
+        }
+
+        //3、插入订单
+        Orders orders = new Orders();
+        //金额和打包费使用上面计算的值
+        BeanUtils.copyProperties(ordersSubmitDTO, orders, "amount", "packAmount");
+        orders.setNumber(nextNumber());
+        orders.setStatus(Orders.PENDING_PAYMENT);
+        orders.setPayStatus(Orders.UN_PAID);
+        orders.setUserId(userId);
+        orders.setAmount(amount);
+        orders.setPackAmount(packAmount);
+        orders.setOrderTime(LocalDateTime.now());
+        orders.setPhone(addressBook.getPhone());
+        orders.setConsignee(addressBook.getConsignee());
+        orders.setAddress(Objects.toString(addressBook.getProvinceName(), "")
+                + Objects.toString(addressBook.getCityName(), "")
+                + Objects.toString(addressBook.getDistrictName(), "")
+                + Objects.toString(addressBook.getDetail(), ""));
+        orderMapper.insert(orders);
+
+        //4、一条多行insert写入全部订单明细
+        List<OrderDetail> orderDetails = new ArrayList<>(shoppingCarts.size());
+        for (ShoppingCart shoppingCart : shoppingCarts) {
+            OrderDetail orderDetail = new OrderDetail();
+            BeanUtils.copyProperties(shoppingCart, orderDetail, "id");
+            orderDetail.setOrderId(orders.getId());
+            orderDetails.add(orderDetail);
+        }
+        orderDetailMapper.insertBatch(orderDetails);
+
+        OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
+                .id(orders.getId())
+                .orderNumber(orders.getNumber())
+                .orderAmount(orders.getAmount())
+                .orderTime(orders.getOrderTime())
+                .build();
+        synchronization.result = orderSubmitVO;
+        return orderSubmitVO;
+    }
+
+    private OrderSubmitVO getPreviousResult(String key) {
+        String json = stringRedisTemplate.opsForValue().get(key);
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, OrderSubmitVO.class);
+        } catch (Exception e) {
+            log.warn("读取幂等下单结果失败：{}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 订单号：当前秒数 + 6位序号，序号由Redis按秒分配，多个节点同时下单也不会重复
+     */
+    private String nextNumber() {
+        long seconds = System.currentTimeMillis() / 1000;
+        Long sequence = stringRedisTemplate.execute(SEQUENCE_SCRIPT,
+                Collections.singletonList(NUMBER_SEQUENCE_PREFIX + seconds));
+        return seconds + String.format("%06d", sequence);
+    }
+
+    /**
+     * 事务提交后清空购物车、保存幂等结果，事务结束后释放下单锁
+     */
+    private class SubmitSynchronization implements TransactionSynchronization {
+
+        private final Long userId;
+        private final String lockKey;
+        private final String lockValue;
+        private final String idempotencyKey;
+        private OrderSubmitVO result;
+
+        private SubmitSynchronization(Long userId, String lockKey, String lockValue, String idempotencyKey) {
+            this.userId = userId;
+            this.lockKey = lockKey;
+            this.lockValue = lockValue;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public void afterCommit() {
+            try {
+                shoppingCartService.cleanByUserId(userId);
+            } catch (Exception e) {
+                log.warn("下单后清空购物车失败：{}", e.getMessage());
+            }
+            if (idempotencyKey != null && result != null) {
+                try {
+                    stringRedisTemplate.opsForValue().set(idempotencyKey, objectMapper.writeValueAsString(result),
+                            orderProperties.getIdempotencyTtlSeconds(), TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    log.warn("保存幂等下单结果失败：{}", e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), lockValue);
+            } catch (Exception e) {
+                log.warn("释放下单锁失败：{}", e.getMessage());
+            }
+        }
+    }
+}
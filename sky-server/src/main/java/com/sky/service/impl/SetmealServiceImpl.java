@@ -0,0 +1,198 @@
+package com.sky.service.impl;
+
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageHelper;
+import com.sky.annotation.ReadOnly;
+import com.sky.cache.MenuSnapshotCache;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.dto.SetmealDTO;
+import com.sky.dto.SetmealPageQueryDTO;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.exception.CategoryNotFoundException;
+import com.sky.exception.DeletionNotAllowedException;
+import com.sky.exception.SetmealEnableFailedException;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.result.PageResult;
+import com.sky.service.SetmealService;
+import com.sky.vo.SetmealVO;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+public class SetmealServiceImpl implements SetmealService {
+
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private SetmealDishMapper setmealDishMapper;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    /**
+     * 新增套餐和套餐菜品关系，套餐菜品通过一条多行insert写入
+     *
+     * @param setmealDTO
+     */
+    @Override
+    @Transactional
+    public void saveWithDish(SetmealDTO setmealDTO) {
+        lockCategory(setmealDTO.getCategoryId());
+
+        Setmeal setmeal = new Setmeal();
+        BeanUtils.copyProperties(setmealDTO, setmeal);
+
+        //新增的套餐一律停售，只能通过起售接口（会检查停售菜品）起售
+        setmeal.setStatus(StatusConstant.DISABLE);
+        setmealMapper.insert(setmeal);
+
+        insertSetmealDishes(setmeal.getId(), setmealDTO.getSetmealDishes());
+        menuSnapshotCache.invalidate(setmeal.getCategoryId());
+    }
+
+    /**
+     * 套餐分页查询
+     *
+     * @param setmealPageQueryDTO
+     * @return
+     */
+    @Override
+    @ReadOnly
+    public PageResult pageQuery(SetmealPageQueryDTO setmealPageQueryDTO) {
+        PageHelper.startPage(setmealPageQueryDTO.getPage(), setmealPageQueryDTO.getPageSize());
+        Page<SetmealVO> page = setmealMapper.pageQuery(setmealPageQueryDTO);
+        return new PageResult(page.getTotal(), page.getResult());
+    }
+
+    /**
+     * 套餐批量删除
+     * 起售中的套餐不能删除；检查、删除套餐和删除套餐菜品关系在同一事务中完成，语句数与套餐数量无关
+     *
+     * @param ids
+     */
+    @Override
+    @Transactional
+    public void deleteBatch(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        if (setmealMapper.countOnSaleByIds(ids) > 0) {
+            throw new DeletionNotAllowedException(MessageConstant.SETMEAL_ON_SALE);
+        }
+
+        List<Long> categoryIds = setmealMapper.getCategoryIdsByIds(ids);
+        setmealMapper.deleteByIds(ids);
+        setmealDishMapper.deleteBySetmealIds(ids);
+        menuSnapshotCache.invalidate(categoryIds);
+    }
+
+    /**
+     * 根据id查询套餐和套餐菜品关系
+     *
+     * @param id
+     * @return
+     */
+    @Override
+    public SetmealVO getByIdWithDish(Long id) {
+        Setmeal setmeal = setmealMapper.getById(id);
+        if (setmeal == null) {
+            return null;
+        }
+
+        SetmealVO setmealVO = new SetmealVO();
+        BeanUtils.copyProperties(setmeal, setmealVO);
+        setmealVO.setSetmealDishes(setmealDishMapper.getBySetmealId(id));
+        return setmealVO;
+    }
+
+    /**
+     * 修改套餐，套餐菜品关系先全部删除再批量插入
+     * 不修改售卖状态；起售中的套餐修改后不能包含停售菜品
+     *
+     * @param setmealDTO
+     */
+    @Override
+    @Transactional
+    public void update(SetmealDTO setmealDTO) {
+        lockCategory(setmealDTO.getCategoryId());
+        Setmeal original = setmealMapper.getById(setmealDTO.getId());
+
+        Setmeal setmeal = new Setmeal();
+        BeanUtils.copyProperties(setmealDTO, setmeal, "status");
+        setmealMapper.update(setmeal);
+
+        List<Long> ids = Collections.singletonList(setmealDTO.getId());
+        setmealDishMapper.deleteBySetmealIds(ids);
+        insertSetmealDishes(setmealDTO.getId(), setmealDTO.getSetmealDishes());
+        if (original != null && StatusConstant.ENABLE.equals(original.getStatus())
+                && setmealDishMapper.countDisabledDishBySetmealIds(ids) > 0) {
+            throw new SetmealEnableFailedException(MessageConstant.SETMEAL_ENABLE_FAILED);
+        }
+
+        //修改了分类时，原分类和新分类的菜单都需要失效
+        List<Long> categoryIds = new ArrayList<>();
+        categoryIds.add(setmealDTO.getCategoryId());
+        if (original != null) {
+            categoryIds.add(original.getCategoryId());
+        }
+        menuSnapshotCache.invalidate(categoryIds);
+    }
+
+    /**
+     * 批量起售或停售套餐
+     * 起售前用一次聚合查询检查所有套餐是否包含停售菜品，状态用一条update语句修改
+     *
+     * @param status
+     * @param ids
+     */
+    @Override
+    @Transactional
+    public void startOrStop(Integer status, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        if (StatusConstant.ENABLE.equals(status) && setmealDishMapper.countDisabledDishBySetmealIds(ids) > 0) {
+            throw new SetmealEnableFailedException(MessageConstant.SETMEAL_ENABLE_FAILED);
+        }
+
+        Setmeal setmeal = Setmeal.builder()
+                .status(status)
+                .build();
+        setmealMapper.updateStatusByIds(setmeal, ids);
+        menuSnapshotCache.invalidate(setmealMapper.getCategoryIdsByIds(ids));
+    }
+
+    /**
+     * 为套餐批量插入套餐菜品关系
+     *
+     * @param setmealId
+     * @param setmealDishes
+     */
+    private void insertSetmealDishes(Long setmealId, List<SetmealDish> setmealDishes) {
+        if (setmealDishes == null || setmealDishes.isEmpty()) {
+            return;
+        }
+        setmealDishes.forEach(setmealDish -> setmealDish.setSetmealId(setmealId));
+        setmealDishMapper.insertBatch(setmealDishes);
+    }
+
+    /**
+     * 对套餐所属分类加共享锁，防止分类在本事务提交前被删除
+     */
+    private void lockCategory(Long categoryId) {
+        if (categoryId != null && categoryMapper.lockByIdInShareMode(categoryId) == null) {
+            throw new CategoryNotFoundException(MessageConstant.CATEGORY_NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.sky.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.constant.MessageConstant;
+import com.sky.constant.StatusConstant;
+import com.sky.context.BaseContext;
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.entity.ShoppingCart;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.properties.ShoppingCartProperties;
+import com.sky.service.ShoppingCartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 购物车保存在Redis中，每个用户一个hash：field为商品（菜品+口味或套餐），value为数量
+ * 加减数量由Lua脚本原子完成，购物车操作不访问数据库；商品名称、图片和单价在查看时按id批量读取并在本地短期缓存
+ */
+@Service
+public class ShoppingCartServiceImpl implements ShoppingCartService {
+
+    private static final String KEY_PREFIX = "sky:cart:";
+    private static final String DISH_PREFIX = "d:";
+    private static final String SETMEAL_PREFIX = "s:";
+
+    //ARGV: field、商品种类上限、单个商品数量上限、过期时间（毫秒）；返回新数量，-1表示种类已满，-2表示数量已达上限
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "local number = redis.call('HGET', KEYS[1], ARGV[1]) " +
+            "if number then " +
+            "  if tonumber(number) >= tonumber(ARGV[3]) then return -2 end " +
+            "  number = redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+            "else " +
+            "  if redis.call('HLEN', KEYS[1]) >= tonumber(ARGV[2]) then return -1 end " +
+            "  redis.call('HSET', KEYS[1], ARGV[1], 1) " +
+            "  number = 1 " +
+            "end " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[4]) " +
+            "return number", Long.class);
+
+    //ARGV: field、过期时间（毫秒）；返回新数量，商品不在购物车中时返回0
+    private static final DefaultRedisScript<Long> SUB_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+            "local number = redis.call('HINCRBY', KEYS[1], ARGV[1], -1) " +
+            "if number <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) number = 0 end " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return number", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private DishMapper dishMapper;
+    @Autowired
+    private SetmealMapper setmealMapper;
+    @Autowired
+    private ShoppingCartProperties shoppingCartProperties;
+
+    //菜品和套餐信息的短期本地缓存，展示购物车时不必每次查询数据库
+    private Cache<Long, Dish> dishCache;
+    private Cache<Long, Setmeal> setmealCache;
+
+    @PostConstruct
+    public void init() {
+        dishCache = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(shoppingCartProperties.getLookupCacheTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+        setmealCache = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(shoppingCartProperties.getLookupCacheTtlSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 添加购物车
+     *
+     * @param shoppingCartDTO
+     */
+    @Override
+    public void add(ShoppingCartDTO shoppingCartDTO) {
+        //菜品id和套餐id都为空时直接拒绝
+        String field = field(shoppingCartDTO);
+
+        //只能添加存在且起售中的商品
+        if (shoppingCartDTO.getDishId() != null) {
+            Dish dish = getDishes(Collections.singleton(shoppingCartDTO.getDishId())).get(shoppingCartDTO.getDishId());
+            if (dish == null || !StatusConstant.ENABLE.equals(dish.getStatus())) {
+                throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_UNAVAILABLE);
+            }
+        } else {
+            Setmeal setmeal = getSetmeals(Collections.singleton(shoppingCartDTO.getSetmealId())).get(shoppingCartDTO.getSetmealId());
+            if (setmeal == null || !StatusConstant.ENABLE.equals(setmeal.getStatus())) {
+                throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_UNAVAILABLE);
+            }
+        }
+
+        Long number = stringRedisTemplate.execute(ADD_SCRIPT,
+                Collections.singletonList(key(BaseContext.getCurrentId())),
+                field,
+                String.valueOf(shoppingCartProperties.getMaxItems()),
+                String.valueOf(shoppingCartProperties.getMaxQuantityPerItem()),
+                String.valueOf(TimeUnit.SECONDS.toMillis(shoppingCartProperties.getTtlSeconds())));
+        if (number != null && number == -1) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_FULL);
+        }
+        if (number != null && number == -2) {
+            throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_LIMIT);
+        }
+    }
+
+    /**
+     * 商品数量减一
+     *
+     * @param shoppingCartDTO
+     */
+    @Override
+    public void sub(ShoppingCartDTO shoppingCartDTO) {
+        stringRedisTemplate.execute(SUB_SCRIPT,
+                Collections.singletonList(key(BaseContext.getCurrentId())),
+                field(shoppingCartDTO),
+                String.valueOf(TimeUnit.SECONDS.toMillis(shoppingCartProperties.getTtlSeconds())));
+    }
+
+    @Override
+    public List<ShoppingCart> list() {
+        return listByUserId(BaseContext.getCurrentId());
+    }
+
+    /**
+     * 查看购物车，一次读取整个hash，菜品和套餐信息各批量查询一次
+     * 已删除或停售的商品不再展示
+     *
+     * @param userId
+     * @return
+     */
+    @Override
+    public List<ShoppingCart> listByUserId(Long userId) {
+        return listByUserId(userId, false);
+    }
+
+    /**
+     * 下单时读取购物车，存在已删除或停售的商品时不能下单，避免少下商品；
+     * 价格和售卖状态直接查询数据库（在下单事务中），不使用本地缓存
+     *
+     * @param userId
+     * @return
+     */
+    @Override
+    public List<ShoppingCart> listForCheckout(Long userId) {
+        return listByUserId(userId, true);
+    }
+
+    private List<ShoppingCart> listByUserId(Long userId, boolean checkout) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key(userId));
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        //按field排序，保证每次展示的顺序一致
+        Map<String, Integer> numbers = new TreeMap<>();
+        Set<Long> dishIds = new HashSet<>();
+        Set<Long> setmealIds = new HashSet<>();
+        entries.forEach((field, number) -> {
+            String item = field.toString();
+            numbers.put(item, Integer.valueOf(number.toString()));
+            if (item.startsWith(DISH_PREFIX)) {
+                dishIds.add(Long.valueOf(item.split(":", 3)[1]));
+            } else {
+                setmealIds.add(Long.valueOf(item.substring(SETMEAL_PREFIX.length())));
+            }
+        });
+        Map<Long, Dish> dishes = checkout ? loadDishes(dishIds) : getDishes(dishIds);
+        Map<Long, Setmeal> setmeals = checkout ? loadSetmeals(setmealIds) : getSetmeals(setmealIds);
+
+        List<ShoppingCart> shoppingCarts = new ArrayList<>(numbers.size());
+        numbers.forEach((item, number) -> {
+            ShoppingCart shoppingCart;
+            if (item.startsWith(DISH_PREFIX)) {
+                String[] parts = item.split(":", 3);
+                Dish dish = dishes.get(Long.valueOf(parts[1]));
+                if (dish == null || !StatusConstant.ENABLE.equals(dish.getStatus())) {
+                    if (checkout) {
+                        throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_UNAVAILABLE);
+                    }
+                    return;
+                }
+                shoppingCart = ShoppingCart.builder()
+                        .dishId(dish.getId())
+                        .dishFlavor(parts[2].isEmpty() ? null : parts[2])
+                        .name(dish.getName())
+                        .image(dish.getImage())
+                        .amount(dish.getPrice())
+                        .build();
+            } else {
+                Setmeal setmeal = setmeals.get(Long.valueOf(item.substring(SETMEAL_PREFIX.length())));
+                if (setmeal == null || !StatusConstant.ENABLE.equals(setmeal.getStatus())) {
+                    if (checkout) {
+                        throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_UNAVAILABLE);
+                    }
+                    return;
+                }
+                shoppingCart = ShoppingCart.builder()
+                        .setmealId(setmeal.getId())
+                        .name(setmeal.getName())
+                        .image(setmeal.getImage())
+                        .amount(setmeal.getPrice())
+                        .build();
+            }
+            shoppingCart.setUserId(userId);
+            shoppingCart.setNumber(number);
+            shoppingCarts.add(shoppingCart);
+        });
+        return shoppingCarts;
+    }
+
+    @Override
+    public void clean() {
+        cleanByUserId(BaseContext.getCurrentId());
+    }
+
+    @Override
+    public void cleanByUserId(Long userId) {
+        stringRedisTemplate.delete(key(userId));
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    /**
+     * 购物车中的商品标识：菜品为 d:菜品id:口味，套餐为 s:套餐id
+     */
+    private static String field(ShoppingCartDTO shoppingCartDTO) {
+        if (shoppingCartDTO.getDishId() != null) {
+            String flavor = shoppingCartDTO.getDishFlavor() == null ? "" : shoppingCartDTO.getDishFlavor();
+            return DISH_PREFIX + shoppingCartDTO.getDishId() + ":" + flavor;
+        }
+        if (shoppingCartDTO.getSetmealId() != null) {
+            return SETMEAL_PREFIX + shoppingCartDTO.getSetmealId();
+        }
+        throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_ITEM_UNAVAILABLE);
+    }
+
+    private Map<Long, Dish> getDishes(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return dishCache.getAll(ids, missing -> dishMapper.getByIds(toList(missing)).stream()
+                .collect(Collectors.toMap(Dish::getId, Function.identity())));
+    }
+
+    private Map<Long, Setmeal> getSetmeals(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return setmealCache.getAll(ids, missing -> setmealMapper.getByIds(toList(missing)).stream()
+                .collect(Collectors.toMap(Setmeal::getId, Function.identity())));
+    }
+
+    private Map<Long, Dish> loadDishes(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return dishMapper.getByIds(ids).stream().collect(Collectors.toMap(Dish::getId, Function.identity()));
+    }
+
+    private Map<Long, Setmeal> loadSetmeals(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return setmealMapper.getByIds(ids).stream().collect(Collectors.toMap(Setmeal::getId, Function.identity()));
+    }
+
+    private static List<Long> toList(Iterable<? extends Long> ids) {
+        List<Long> list = new ArrayList<>();
+        ids.forEach(list::add);
+        return list;
+    }
+}
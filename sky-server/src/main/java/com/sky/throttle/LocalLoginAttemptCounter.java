@@ -0,0 +1,94 @@
+package com.sky.throttle;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.properties.LoginThrottleProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单节点内存中的登录尝试计数器
+ * 每个key对应一组环形子窗口计数，只使用CAS和原子自增，不加锁
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.login-throttle", name = "store", havingValue = "local", matchIfMissing = true)
+public class LocalLoginAttemptCounter implements LoginAttemptCounter {
+
+    @Autowired
+    private LoginThrottleProperties loginThrottleProperties;
+
+    private Cache<String, SlidingWindow> windows;
+
+    private long bucketMillis;
+
+    @PostConstruct
+    public void init() {
+        bucketMillis = TimeUnit.SECONDS.toMillis(loginThrottleProperties.getWindowSeconds()) / loginThrottleProperties.getWindowBuckets();
+        windows = Caffeine.newBuilder()
+                .maximumSize(loginThrottleProperties.getMaxTrackedKeys())
+                .expireAfterAccess(loginThrottleProperties.getWindowSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    @Override
+    public long increment(String key) {
+        SlidingWindow window = windows.get(key, k -> new SlidingWindow(loginThrottleProperties.getWindowBuckets()));
+        return window.increment(System.currentTimeMillis() / bucketMillis);
+    }
+
+    @Override
+    public long count(String key) {
+        SlidingWindow window = windows.getIfPresent(key);
+        return window == null ? 0 : window.sum(System.currentTimeMillis() / bucketMillis);
+    }
+
+    /**
+     * 环形子窗口：每个槽位用一个long同时保存子窗口编号（高位）和该子窗口内的次数（低位），
+     * 切换子窗口和计数在同一次CAS中完成，清零不会覆盖其他线程并发的自增
+     */
+    private static final class SlidingWindow {
+
+        //低位保存次数，达到上限后不再增加
+        private static final int COUNT_BITS = 24;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+        private static final long EPOCH_MASK = -1L >>> COUNT_BITS;
+
+        private final int buckets;
+        private final AtomicLongArray slots;
+
+        private SlidingWindow(int buckets) {
+            this.buckets = buckets;
+            this.slots = new AtomicLongArray(buckets);
+        }
+
+        private long increment(long epoch) {
+            long current = epoch & EPOCH_MASK;
+            int index = (int) (epoch % buckets);
+            while (true) {
+                long slot = slots.get(index);
+                long count = (slot >>> COUNT_BITS) == current ? Math.min(slot & COUNT_MASK, COUNT_MASK - 1) + 1 : 1;
+                if (slots.compareAndSet(index, slot, (current << COUNT_BITS) | count)) {
+                    break;
+                }
+            }
+            return sum(epoch);
+        }
+
+        private long sum(long epoch) {
+            long current = epoch & EPOCH_MASK;
+            long total = 0;
+            for (int i = 0; i < buckets; i++) {
+                long slot = slots.get(i);
+                if (current - (slot >>> COUNT_BITS) < buckets) {
+                    total += slot & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+    }
+}
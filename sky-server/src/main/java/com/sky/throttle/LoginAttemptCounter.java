@@ -0,0 +1,21 @@
+package com.sky.throttle;
+
+/**
+ * 登录尝试计数器，按滑动窗口统计
+ */
+public interface LoginAttemptCounter {
+
+    /**
+     * 记录一次登录尝试
+     * @param key 计数的对象，例如用户名或IP
+     * @return 包含本次在内，滑动窗口内的尝试次数
+     */
+    long increment(String key);
+
+    /**
+     * 查询滑动窗口内的尝试次数，不计入本次
+     * @param key 计数的对象
+     * @return
+     */
+    long count(String key);
+}
@@ -0,0 +1,59 @@
+package com.sky.throttle;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.LoginFailedException;
+import com.sky.properties.LoginThrottleProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录限流，在查询数据库和比对密码之前检查：按IP统计全部登录次数，按用户名只统计失败次数，
+ * 账号本人正常登录不会因为登录次数多而被拒绝
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String IP_PREFIX = "ip:";
+
+    @Autowired
+    private LoginThrottleProperties loginThrottleProperties;
+    @Autowired
+    private LoginAttemptCounter loginAttemptCounter;
+
+    /**
+     * 记录一次登录尝试，IP尝试次数或账号失败次数超过限制时抛出异常
+     *
+     * @param username 登录用户名
+     * @param ip       客户端IP
+     */
+    public void acquire(String username, String ip) {
+        if (!loginThrottleProperties.isEnabled()) {
+            return;
+        }
+
+        if (loginAttemptCounter.increment(IP_PREFIX + ip) > loginThrottleProperties.getMaxAttemptsPerIp()) {
+            log.warn("IP登录过于频繁：{}", ip);
+            throw new LoginFailedException(MessageConstant.LOGIN_TOO_FREQUENT);
+        }
+        if (username != null
+                && loginAttemptCounter.count(USERNAME_PREFIX + username) >= loginThrottleProperties.getMaxAttemptsPerUsername()) {
+            log.warn("账号登录失败次数过多：{}", username);
+            throw new LoginFailedException(MessageConstant.LOGIN_TOO_FREQUENT);
+        }
+    }
+
+    /**
+     * 记录一次登录失败（账号不存在或密码错误）
+     *
+     * @param username 登录用户名
+     */
+    public void recordFailure(String username) {
+        if (!loginThrottleProperties.isEnabled() || username == null) {
+            return;
+        }
+        loginAttemptCounter.increment(USERNAME_PREFIX + username);
+    }
+}
@@ -0,0 +1,76 @@
+package com.sky.throttle;
+
+import com.sky.properties.LoginThrottleProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的登录尝试计数器，多节点共享计数
+ * 每个子窗口一个key，一次Lua脚本调用完成自增和窗口内求和
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.login-throttle", name = "store", havingValue = "redis")
+public class RedisLoginAttemptCounter implements LoginAttemptCounter {
+
+    private static final String KEY_PREFIX = "sky:login:attempts:";
+
+    //KEYS[1]为当前子窗口，其余为之前的子窗口；ARGV[1]为子窗口key的过期时间（毫秒）
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('INCR', KEYS[1]) " +
+            "if current == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end " +
+            "local total = 0 " +
+            "for i = 1, #KEYS do " +
+            "  local value = redis.call('GET', KEYS[i]) " +
+            "  if value then total = total + tonumber(value) end " +
+            "end " +
+            "return total", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private LoginThrottleProperties loginThrottleProperties;
+
+    @Override
+    public long increment(String key) {
+        long windowMillis = TimeUnit.SECONDS.toMillis(loginThrottleProperties.getWindowSeconds());
+        long bucketMillis = windowMillis / loginThrottleProperties.getWindowBuckets();
+        Long total = stringRedisTemplate.execute(INCREMENT_SCRIPT, keys(key), String.valueOf(windowMillis + bucketMillis));
+        return total == null ? 0 : total;
+    }
+
+    @Override
+    public long count(String key) {
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys(key));
+        long total = 0;
+        if (values != null) {
+            for (String value : values) {
+                if (value != null) {
+                    total += Long.parseLong(value);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 当前子窗口和之前各子窗口的key，当前子窗口在第一个
+     */
+    private List<String> keys(String key) {
+        int buckets = loginThrottleProperties.getWindowBuckets();
+        long bucketMillis = TimeUnit.SECONDS.toMillis(loginThrottleProperties.getWindowSeconds()) / buckets;
+        long epoch = System.currentTimeMillis() / bucketMillis;
+
+        List<String> keys = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            keys.add(KEY_PREFIX + key + ":" + (epoch - i));
+        }
+        return keys;
+    }
+}